@@ -40,18 +40,19 @@ $exercises = @(
 
 # URL de l'API
 $apiUrl = "http://localhost:8083/api/v1/exercises"
+# Upsert par contenu : relancer le script met à jour les exercices au lieu de les dupliquer
+$bulkUrl = "http://localhost:8083/api/v1/teacher/exercises/bulk"
 
-# Ajouter chaque exercice
-foreach ($ex in $exercises) {
-    $body = $ex | ConvertTo-Json
-    Write-Host "Ajout de l'exercice: $($ex.title)"
-    
-    try {
-        $response = Invoke-RestMethod -Uri $apiUrl -Method Post -Body $body -ContentType "application/json"
-        Write-Host "  ✓ Succès - ID: $($response.id)" -ForegroundColor Green
-    } catch {
-        Write-Host "  ✗ Erreur: $($_.Exception.Message)" -ForegroundColor Red
+$body = ConvertTo-Json -InputObject $exercises -Depth 5
+Write-Host "Ajout de $($exercises.Count) exercices"
+
+try {
+    $response = Invoke-RestMethod -Uri $bulkUrl -Method Post -Body ([System.Text.Encoding]::UTF8.GetBytes($body)) -ContentType "application/json; charset=utf-8"
+    foreach ($saved in $response) {
+        Write-Host "  ✓ $($saved.title) - ID: $($saved.id)" -ForegroundColor Green
     }
+} catch {
+    Write-Host "  ✗ Erreur: $($_.Exception.Message)" -ForegroundColor Red
 }
 
 Write-Host "
@@ -27,6 +27,10 @@ const normalizeRole = (r) => String(r || "").toUpperCase().replace("ROLE_", "");
    Helpers (important)
 ========================= */
 
+// Clé Idempotency-Key d'une soumission (crypto.randomUUID absent hors HTTPS sur certains navigateurs)
+const newIdempotencyKey = () =>
+  globalThis.crypto?.randomUUID?.() ?? `${Date.now()}-${Math.random().toString(36).slice(2)}`;
+
 // Nettoie texte (utile pour extractions)
 const cleanText = (s) =>
   String(s || "")
@@ -226,14 +230,26 @@ const ExerciseDetail = ({ exercise, onClose, onSubmit }) => {
     try {
       const payload = buildPayload();
 
-      const resp = await fetch(`${EXERCISE_API_BASE}/submissions/${exerciseId}`, {
-        method: "POST",
-        headers: {
-          "Content-Type": "application/json",
-          ...(token ? { Authorization: `Bearer ${token}` } : {}),
-        },
-        body: JSON.stringify(payload),
-      });
+      // ✅ une clé par soumission : si le réseau coupe, le renvoi est rejoué côté serveur (pas de doublon)
+      const idempotencyKey = newIdempotencyKey();
+      const send = () =>
+        fetch(`${EXERCISE_API_BASE}/submissions/${exerciseId}`, {
+          method: "POST",
+          headers: {
+            "Content-Type": "application/json",
+            "Idempotency-Key": idempotencyKey,
+            ...(token ? { Authorization: `Bearer ${token}` } : {}),
+          },
+          body: JSON.stringify(payload),
+        });
+
+      let resp;
+      try {
+        resp = await send();
+      } catch {
+        // requête perdue (Wi-Fi) : un renvoi avec la même clé
+        resp = await send();
+      }
 
       if (!resp.ok) throw new Error(await readServerError(resp));
 
@@ -507,9 +523,11 @@ const ExerciseDetail = ({ exercise, onClose, onSubmit }) => {
                             <div
                               key={sf.index}
                               className={`p-3 rounded-lg border ${
-                                sf.correct
+                                sf.correct === true
                                   ? "bg-green-100 border-green-200"
-                                  : "bg-red-100 border-red-200"
+                                  : sf.correct === false
+                                    ? "bg-red-100 border-red-200"
+                                    : "bg-gray-100 border-gray-200"
                               }`}
                             >
                               <div className="text-sm text-gray-700">
@@ -517,7 +535,9 @@ const ExerciseDetail = ({ exercise, onClose, onSubmit }) => {
                               </div>
 
                               {!sf.correct && sf.hint && (
-                                <div className="text-sm text-red-700 mt-1">💡 {sf.hint}</div>
+                                <div className={`text-sm mt-1 ${sf.correct === false ? "text-red-700" : "text-gray-600"}`}>
+                                  💡 {sf.hint}
+                                </div>
                               )}
 
                               {!sf.correct && sf.correctedStep && (
@@ -761,14 +761,20 @@ const ExercisePage = () => {
                     <div
                       key={sf.index}
                       className={`p-3 rounded border ${
-                        sf.correct ? "bg-green-50 border-green-200" : "bg-red-50 border-red-200"
+                        sf.correct === true
+                          ? "bg-green-50 border-green-200"
+                          : sf.correct === false
+                            ? "bg-red-50 border-red-200"
+                            : "bg-gray-50 border-gray-200"
                       }`}
                     >
                       <div className="text-sm">
                         <b>Étape {sf.index + 1}:</b> {sf.step}
                       </div>
                       {!sf.correct && sf.hint && (
-                        <div className="text-sm text-red-700 mt-1">💡 {sf.hint}</div>
+                        <div className={`text-sm mt-1 ${sf.correct === false ? "text-red-700" : "text-gray-600"}`}>
+                          💡 {sf.hint}
+                        </div>
                       )}
                       {!sf.correct && sf.correctedStep && (
                         <div className="text-sm mt-1">
@@ -86,7 +86,7 @@ const Exercises = () => {
       const haystack = [
         e.title,
         e.description,
-        e.problemStatement,
+        e.statementExcerpt,
         (e.topics || []).join(" "),
         (e.tags || []).join(" "),
       ]
@@ -131,9 +131,13 @@ export const submissionsService = {
     return unwrapList(res.data) || res.data || [];
   },
 
-  submitJson: async (exerciseId, payload) => {
+  submitJson: async (exerciseId, payload, idempotencyKey) => {
     // payload peut contenir: {userId, answer} OU {userId, steps, finalAnswer}
-    const res = await exercisesApi.post(`/submissions/${exerciseId}`, payload);
+    // ✅ Idempotency-Key : générée UNE fois par soumission par l'appelant et repassée à chaque renvoi,
+    // pour que le serveur rejoue la première réponse (sans clé : pas d'en-tête)
+    const res = await exercisesApi.post(`/submissions/${exerciseId}`, payload, {
+      headers: idempotencyKey ? { "Idempotency-Key": idempotencyKey } : {},
+    });
     return res.data;
   },
 
@@ -4,6 +4,8 @@ from src.models.schemas import (
     EvaluationResponse,
     StepEvaluationRequest,
     StepEvaluationResponse,
+    StepEvaluationBatchRequest,
+    StepEvaluationBatchResponse,
     StepFeedback
 )
 from src.services.math_evaluator import math_evaluator
@@ -187,3 +189,13 @@ def evaluate_steps(req: StepEvaluationRequest):
         generated_solution_steps=generated_solution_steps,
         correct_answer=req.expected_answer
     )
+
+
+@router.post("/evaluate-steps/batch", response_model=StepEvaluationBatchResponse)
+def evaluate_steps_batch(req: StepEvaluationBatchRequest):
+    """
+    ✅ Micro-batch envoyé par exercise-service : une réponse par requête, dans le même ordre.
+    """
+    return StepEvaluationBatchResponse(
+        responses=[evaluate_steps(r) for r in req.requests]
+    )
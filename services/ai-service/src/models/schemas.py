@@ -135,3 +135,11 @@ class StepEvaluationResponse(BaseModel):
     steps_feedback: List[StepFeedback] = Field(default_factory=list, description="Feedback par étape")
     generated_solution_steps: List[str] = Field(default_factory=list, description="Solution modèle proposée")
     correct_answer: Optional[str] = Field(None, description="Réponse correcte (référence)")
+
+
+class StepEvaluationBatchRequest(BaseModel):
+    requests: List[StepEvaluationRequest] = Field(..., description="Évaluations regroupées par le client")
+
+
+class StepEvaluationBatchResponse(BaseModel):
+    responses: List[StepEvaluationResponse] = Field(default_factory=list, description="Réponses, dans l'ordre des requêtes")
@@ -1,14 +1,249 @@
 package com.neurotutor.auth.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client HTTP partagé par les appels sortants (DiagnosticService -> exercise-service) :
+ * connexions keep-alive poolées, plafond par route, délais de connexion / lecture / attente du pool,
+ * et une échéance totale par requête (un service lent ne bloque plus un thread Tomcat indéfiniment).
+ * Métriques du pool : httpcomponents.httpclient.pool.* (tag httpclient=inter-service).
+ */
 @Configuration
 public class RestTemplateConfig {
-    
+
+    @Value("${http.client.max-total:100}")
+    private int maxTotal;
+
+    @Value("${http.client.max-per-route:20}")
+    private int maxPerRoute;
+
+    @Value("${http.client.connect-timeout:2s}")
+    private Duration connectTimeout;
+
+    @Value("${http.client.read-timeout:10s}")
+    private Duration readTimeout;
+
+    // attente d'une connexion libre dans le pool
+    @Value("${http.client.pool-timeout:2s}")
+    private Duration poolTimeout;
+
+    // échéance totale d'une requête (connexion + envoi + lecture complète de la réponse)
+    @Value("${http.client.total-timeout:15s}")
+    private Duration totalTimeout;
+
+    @Value("${http.client.idle-timeout:30s}")
+    private Duration idleTimeout;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager httpConnectionManager(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager cm = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout.toMillis()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(cm, "inter-service").bindTo(meterRegistry);
+        return cm;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager httpConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeout.toMillis()))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleTimeout.toMillis()))
+                .build();
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(CloseableHttpClient httpClient) {
+        return new RestTemplate(new DeadlineRequestFactory(httpClient, totalTimeout));
+    }
+
+    /**
+     * Annule la requête si elle dure plus que l'échéance totale (le read-timeout ne borne
+     * qu'un silence entre deux paquets, pas une réponse qui arrive au compte-gouttes).
+     * L'échéance est retirée du planificateur dès que la réponse est fermée (ou l'envoi en échec) :
+     * seules les requêtes réellement en cours y restent référencées.
+     */
+    static class DeadlineRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+        private static final ScheduledThreadPoolExecutor DEADLINES = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "http-deadline");
+            t.setDaemon(true);
+            return t;
+        });
+
+        static {
+            DEADLINES.setRemoveOnCancelPolicy(true);
+        }
+
+        // requête Apache passée à postProcessHttpRequest, reprise par createRequest sur le même thread
+        private static final ThreadLocal<Cancellable> CREATED = new ThreadLocal<>();
+
+        private final long totalMillis;
+
+        DeadlineRequestFactory(CloseableHttpClient httpClient, Duration totalTimeout) {
+            super(httpClient);
+            this.totalMillis = totalTimeout.toMillis();
+        }
+
+        @Override
+        public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+            ClientHttpRequest request;
+            Cancellable cancellable;
+            try {
+                request = super.createRequest(uri, httpMethod);
+                cancellable = CREATED.get();
+            } finally {
+                CREATED.remove();
+            }
+            if (cancellable == null) return request;
+
+            ScheduledFuture<?> deadline = DEADLINES.schedule(cancellable::cancel, totalMillis, TimeUnit.MILLISECONDS);
+            // le corps en flux (setBufferRequestBody(false)) passe par setBody : l'enveloppe doit le garder
+            return request instanceof StreamingHttpOutputMessage
+                    ? new StreamingDeadlineRequest(request, deadline)
+                    : new DeadlineRequest(request, deadline);
+        }
+
+        @Override
+        protected void postProcessHttpRequest(ClassicHttpRequest request) {
+            if (request instanceof Cancellable cancellable) {
+                CREATED.set(cancellable);
+            }
+        }
+    }
+
+    private static class DeadlineRequest implements ClientHttpRequest {
+
+        final ClientHttpRequest delegate;
+        private final ScheduledFuture<?> deadline;
+
+        DeadlineRequest(ClientHttpRequest delegate, ScheduledFuture<?> deadline) {
+            this.delegate = delegate;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            try {
+                return new DeadlineResponse(delegate.execute(), deadline);
+            } catch (IOException | RuntimeException e) {
+                deadline.cancel(false);
+                throw e;
+            }
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return delegate.getMethod();
+        }
+
+        @Override
+        public URI getURI() {
+            return delegate.getURI();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public OutputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+    }
+
+    private static final class StreamingDeadlineRequest extends DeadlineRequest implements StreamingHttpOutputMessage {
+
+        StreamingDeadlineRequest(ClientHttpRequest delegate, ScheduledFuture<?> deadline) {
+            super(delegate, deadline);
+        }
+
+        @Override
+        public void setBody(Body body) {
+            ((StreamingHttpOutputMessage) delegate).setBody(body);
+        }
+    }
+
+    // l'échéance couvre aussi la lecture du corps : annulée à la fermeture de la réponse
+    private record DeadlineResponse(ClientHttpResponse delegate, ScheduledFuture<?> deadline)
+            implements ClientHttpResponse {
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public int getRawStatusCode() throws IOException {
+            return delegate.getRawStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                deadline.cancel(false);
+            }
+        }
     }
 }
@@ -0,0 +1,42 @@
+package com.neurotutor.auth.config;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Accès aux threads virtuels sans dépendre de leur API à la compilation : le code cible Java 17,
+ * les threads virtuels n'existent qu'à partir d'un runtime Java 21.
+ */
+public final class VirtualThreads {
+
+    private static final Method NEW_PER_TASK_EXECUTOR = lookup();
+
+    private VirtualThreads() {
+    }
+
+    public static boolean supported() {
+        return NEW_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Un thread virtuel par tâche ; vide si le runtime ne les connaît pas.
+     */
+    public static Optional<ExecutorService> perTaskExecutor() {
+        if (NEW_PER_TASK_EXECUTOR == null) return Optional.empty();
+        try {
+            return Optional.of((ExecutorService) NEW_PER_TASK_EXECUTOR.invoke(null));
+        } catch (ReflectiveOperationException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Method lookup() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
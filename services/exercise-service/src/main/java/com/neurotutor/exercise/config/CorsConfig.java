@@ -29,6 +29,8 @@ public class CorsConfig {
                 "Authorization",
                 "Content-Type",
                 "Content-Disposition",
+                "ETag",
+                "Idempotent-Replayed",
                 "Access-Control-Allow-Origin",
                 "Access-Control-Allow-Credentials"
         ));
@@ -0,0 +1,150 @@
+package com.neurotutor.exercise.config;
+
+import com.neurotutor.exercise.model.Exercise;
+import com.neurotutor.exercise.model.Submission;
+import com.neurotutor.exercise.service.AnswerMatcher;
+import com.neurotutor.exercise.service.ExerciseCatalog;
+import com.neurotutor.exercise.service.ExerciseContentHash;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Index Mongo gérés par le service, créés au démarrage (en tâche de fond :
+ * un Mongo indisponible au boot ne bloque pas l'application).
+ * Toute nouvelle méthode de repository doit être couverte ici :
+ * RepositoryQueryPlanTest (mvn test -Pmongo) échoue si une requête retombe sur un COLLSCAN.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class MongoIndexConfig {
+
+    private static final int BACKFILL_BATCH = 500;
+    private static final String LEGACY_CONTENT_HASH_INDEX = "contentHash";
+
+    private final MongoTemplate mongoTemplate;
+    private final ExerciseCatalog exerciseCatalog;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        CompletableFuture.runAsync(() -> {
+            try {
+                // l'index unique sur contentHash exige des hash calculés et sans doublons
+                backfillDerivedFields();
+                mergeDuplicateExercises();
+                ensureIndexes(mongoTemplate);
+            } catch (Exception e) {
+                System.out.println("[Mongo] Index setup failed: " + e.getMessage());
+            }
+        });
+    }
+
+    public static void ensureIndexes(MongoTemplate mongoTemplate) {
+        // submissions : historique (dashboard + pagination keyset) et tentatives par exercice
+        mongoTemplate.indexOps(Submission.class).ensureIndex(new Index()
+                .on("userId", Sort.Direction.ASC)
+                .on("submittedAt", Sort.Direction.DESC)
+                .on("_id", Sort.Direction.DESC)
+                .named("userId_submittedAt_id"));
+        mongoTemplate.indexOps(Submission.class).ensureIndex(new Index()
+                .on("userId", Sort.Direction.ASC)
+                .on("exerciseId", Sort.Direction.ASC)
+                .named("userId_exerciseId"));
+
+        // exercises : filtres difficulty/topic et clé d'upsert des imports
+        mongoTemplate.indexOps(Exercise.class).ensureIndex(new Index()
+                .on("difficulty", Sort.Direction.ASC)
+                .on("topics", Sort.Direction.ASC)
+                .named("difficulty_topics"));
+        mongoTemplate.indexOps(Exercise.class).ensureIndex(new Index()
+                .on("topics", Sort.Direction.ASC)
+                .named("topics"));
+        // unique : deux imports / bulk concurrents ne peuvent pas insérer le même exercice
+        IndexOperations exerciseIndexes = mongoTemplate.indexOps(Exercise.class);
+        if (exerciseIndexes.getIndexInfo().stream().anyMatch(i -> i.getName().equals(LEGACY_CONTENT_HASH_INDEX))) {
+            exerciseIndexes.dropIndex(LEGACY_CONTENT_HASH_INDEX);
+        }
+        exerciseIndexes.ensureIndex(new Index()
+                .on("contentHash", Sort.Direction.ASC)
+                .unique()
+                .named("contentHash_unique"));
+    }
+
+    // doublons créés avant l'index unique (seed rejoué) : on garde le plus ancien,
+    // les soumissions des copies sont rattachées à l'exercice conservé
+    private void mergeDuplicateExercises() {
+        List<Document> groups = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Exercise.class))
+                .aggregate(List.of(
+                        new Document("$sort", new Document("_id", 1)),
+                        new Document("$group", new Document("_id", "$contentHash")
+                                .append("ids", new Document("$push", "$_id"))),
+                        new Document("$match", new Document("ids.1", new Document("$exists", true)))))
+                .allowDiskUse(true)
+                .into(new ArrayList<>());
+
+        int removed = 0;
+        for (Document group : groups) {
+            List<Object> ids = group.getList("ids", Object.class);
+            String kept = ids.get(0).toString();
+            List<Object> copies = ids.subList(1, ids.size());
+            List<String> copyIds = copies.stream().map(Object::toString).toList();
+
+            mongoTemplate.updateMulti(Query.query(Criteria.where("exerciseId").in(copyIds)),
+                    Update.update("exerciseId", kept), Submission.class);
+            removed += (int) mongoTemplate.remove(Query.query(Criteria.where("_id").in(copies)), Exercise.class)
+                    .getDeletedCount();
+        }
+
+        if (removed > 0) {
+            exerciseCatalog.invalidateAll();
+            System.out.println("[Mongo] " + removed + " duplicate exercises merged before unique contentHash index");
+        }
+    }
+
+    // exercices créés avant contentHash / normalizedSolution : calculés une fois ici
+    private void backfillDerivedFields() {
+        Query missing = Query.query(new Criteria().orOperator(
+                Criteria.where("contentHash").exists(false),
+                Criteria.where("normalizedSolution").exists(false)));
+
+        int updated = 0;
+        BulkOperations ops = null;
+        int pending = 0;
+
+        try (Stream<Exercise> stream = mongoTemplate.stream(missing, Exercise.class)) {
+            for (Exercise ex : (Iterable<Exercise>) stream::iterator) {
+                if (ops == null) ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Exercise.class);
+                ops.updateOne(Query.query(Criteria.where("_id").is(ex.getId())),
+                        Update.update("contentHash", ExerciseContentHash.of(ex))
+                                .set("normalizedSolution", AnswerMatcher.canonical(ex.getSolution())));
+
+                if (++pending >= BACKFILL_BATCH) {
+                    updated += ops.execute().getModifiedCount();
+                    ops = null;
+                    pending = 0;
+                }
+            }
+        }
+        if (ops != null) updated += ops.execute().getModifiedCount();
+
+        if (updated > 0) {
+            exerciseCatalog.invalidateAll();
+            System.out.println("[Mongo] contentHash/normalizedSolution backfilled on " + updated + " exercises");
+        }
+    }
+}
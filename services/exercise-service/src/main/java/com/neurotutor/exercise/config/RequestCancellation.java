@@ -0,0 +1,49 @@
+package com.neurotutor.exercise.config;
+
+import org.apache.hc.core5.concurrent.Cancellable;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Portée d'annulation des requêtes HTTP sortantes : les requêtes du RestTemplate partagé
+ * émises dans {@link #within} par le thread courant sont interrompues par {@link #cancel()}
+ * (connexion fermée, l'appel bloqué échoue aussitôt). Sert à abandonner la requête perdante
+ * d'un appel doublé.
+ */
+public final class RequestCancellation {
+
+    private static final ThreadLocal<RequestCancellation> CURRENT = new ThreadLocal<>();
+
+    private final List<Cancellable> requests = new CopyOnWriteArrayList<>();
+    private volatile boolean cancelled;
+
+    public <T> T within(Supplier<T> call) {
+        RequestCancellation outer = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return call.get();
+        } finally {
+            if (outer == null) CURRENT.remove();
+            else CURRENT.set(outer);
+        }
+    }
+
+    public void cancel() {
+        cancelled = true;
+        for (Cancellable r : requests) r.cancel();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    // appelé par la fabrique de requêtes à chaque requête créée
+    static void register(Cancellable request) {
+        RequestCancellation scope = CURRENT.get();
+        if (scope == null) return;
+        scope.requests.add(request);
+        if (scope.cancelled) request.cancel();
+    }
+}
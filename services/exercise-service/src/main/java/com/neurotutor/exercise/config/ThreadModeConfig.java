@@ -0,0 +1,83 @@
+package com.neurotutor.exercise.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+/**
+ * Mode d'exécution des requêtes HTTP (server.threads.mode=virtual, opt-in) : chaque requête Tomcat
+ * tourne sur un thread virtuel, les appels bloquants (RestTemplate vers l'ai-service, Mongo)
+ * ne monopolisent plus un thread du pool. Le plafond devient le pool de connexions HTTP
+ * (http.client.max-per-route) et non plus server.tomcat.threads.max.
+ * Runtime < Java 21 : message au démarrage et pool Tomcat classique.
+ *
+ * Diagnostic : un thread virtuel bloqué dans un bloc synchronized (ou du natif) « épingle » son
+ * thread porteur. Les événements JFR jdk.VirtualThreadPinned plus longs que pinned-threshold sont
+ * comptés (threads.virtual.pinned) et leur pile est tracée.
+ */
+@Configuration
+@ConditionalOnProperty(name = "server.threads.mode", havingValue = "virtual")
+public class ThreadModeConfig {
+
+    private static final int TRACE_FRAMES = 6;
+
+    @Value("${server.threads.pinned-threshold:20ms}")
+    private Duration pinnedThreshold;
+
+    private RecordingStream pinnedEvents;
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadExecutor(MeterRegistry meterRegistry) {
+        ExecutorService executor = VirtualThreads.perTaskExecutor().orElse(null);
+        if (executor == null) {
+            System.out.println("[Threads] server.threads.mode=virtual needs a Java 21+ runtime ("
+                    + Runtime.version() + "): keeping the platform thread pool");
+            return handler -> {
+            };
+        }
+
+        System.out.println("[Threads] Request handling on virtual threads");
+        watchPinning(meterRegistry);
+        return handler -> handler.setExecutor(executor);
+    }
+
+    @PreDestroy
+    void close() {
+        if (pinnedEvents != null) pinnedEvents.close();
+    }
+
+    private void watchPinning(MeterRegistry meterRegistry) {
+        Counter pinned = Counter.builder("threads.virtual.pinned")
+                .description("Threads virtuels épinglés sur leur porteur au-delà du seuil")
+                .register(meterRegistry);
+        try {
+            pinnedEvents = new RecordingStream();
+            pinnedEvents.enable("jdk.VirtualThreadPinned").withThreshold(pinnedThreshold).withStackTrace();
+            pinnedEvents.onEvent("jdk.VirtualThreadPinned", event -> {
+                pinned.increment();
+                List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+                System.out.println("[Threads] Virtual thread pinned for " + event.getDuration().toMillis() + "ms at "
+                        + frames.stream().limit(TRACE_FRAMES)
+                        .map(f -> f.getMethod().getType().getName() + "." + f.getMethod().getName() + ":" + f.getLineNumber())
+                        .collect(Collectors.joining(" <- ")));
+            });
+            pinnedEvents.startAsync();
+        } catch (RuntimeException e) {
+            // JFR désactivé sur ce runtime : le mode virtuel fonctionne, sans diagnostic
+            System.out.println("[Threads] Pinning diagnostics unavailable: " + e.getMessage());
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package com.neurotutor.exercise.controller;
 
+import com.neurotutor.exercise.dto.ExerciseSummaryDto;
+import com.neurotutor.exercise.dto.FacetSearchResponse;
 import com.neurotutor.exercise.model.Exercise;
-import com.neurotutor.exercise.repository.ExerciseRepository;
+import com.neurotutor.exercise.service.ExerciseService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Map;
 
@@ -15,37 +20,92 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class ExerciseController {
 
-    private final ExerciseRepository exerciseRepository;
+    private final ExerciseService exerciseService;
 
-    // ✅ LIST: /api/v1/exercises?difficulty=...&topic=...
+    // ✅ LIST: /api/v1/exercises?level=...&difficulty=...&topic=...
+    // + &limit=...&cursor=... -> page keyset {value, Count, nextCursor}
+    // ETag = version du catalogue : If-None-Match identique -> 304 sans rien recalculer
     @GetMapping
-    public Map<String, Object> listExercises(
+    public ResponseEntity<?> listExercises(
+            @RequestParam(required = false) String level,
             @RequestParam(required = false) String difficulty,
-            @RequestParam(required = false) String topic
+            @RequestParam(required = false) String topic,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request
     ) {
-        List<Exercise> exercises;
-
-        if (difficulty != null && topic != null) {
-            exercises = exerciseRepository.findByDifficultyAndTopicsContaining(difficulty, topic);
-        } else if (difficulty != null) {
-            exercises = exerciseRepository.findByDifficulty(difficulty);
-        } else if (topic != null) {
-            exercises = exerciseRepository.findByTopicsContaining(topic);
-        } else {
-            exercises = exerciseRepository.findAll();
+        String etag = exerciseService.getCatalogETag();
+        if (request.checkNotModified(etag)) return null;
+
+        if (cursor != null || limit != null) {
+            return revalidated(etag, exerciseService.listExercisesPage(level, difficulty, topic, cursor, limit));
         }
 
-        return Map.of(
+        List<ExerciseSummaryDto> exercises = exerciseService.listExercises(level, difficulty, topic);
+
+        return revalidated(etag, Map.of(
                 "value", exercises,
                 "Count", exercises.size()
-        );
+        ));
+    }
+
+    // ✅ SEARCH: /api/v1/exercises/search?q=résoudre équation&limit=20 (plein texte, tri par pertinence)
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> search(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request
+    ) {
+        String etag = exerciseService.getCatalogETag();
+        if (request.checkNotModified(etag)) return null;
+
+        List<ExerciseSummaryDto> exercises = exerciseService.searchExercises(q, limit);
+        return revalidated(etag, Map.of(
+                "value", exercises,
+                "Count", exercises.size()
+        ));
+    }
+
+    // ✅ FACETS: /api/v1/exercises/facets?all=topic:Algèbre&all=tag:Equations&all=responseType:TEXT&not=difficulty:ADVANCED
+    // all = ET, any = OU, not = exclusion ; renvoie aussi les comptes par facette
+    @GetMapping("/facets")
+    public ResponseEntity<FacetSearchResponse> facetSearch(
+            @RequestParam(required = false) List<String> all,
+            @RequestParam(required = false) List<String> any,
+            @RequestParam(required = false) List<String> not,
+            WebRequest request
+    ) {
+        String etag = exerciseService.getCatalogETag();
+        if (request.checkNotModified(etag)) return null;
+
+        return revalidated(etag, exerciseService.facetSearch(all, any, not));
     }
 
     // ✅ FIX 404: /api/v1/exercises/{id}
+    // ETag par exercice = id + updatedAt
     @GetMapping("/{id}")
-    public ResponseEntity<Exercise> getExerciseById(@PathVariable String id) {
-        return exerciseRepository.findById(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Exercise> getExerciseById(@PathVariable String id, WebRequest request) {
+        Exercise exercise = exerciseService.getExerciseById(id).orElse(null);
+        if (exercise == null) return ResponseEntity.notFound().build();
+
+        String etag = exerciseETag(exercise);
+        if (etag == null) return ResponseEntity.ok(exercise);
+        if (request.checkNotModified(etag)) return null;
+
+        return revalidated(etag, exercise);
+    }
+
+    // no-cache = le client peut garder la réponse mais doit revalider (If-None-Match) à chaque fois
+    private <T> ResponseEntity<T> revalidated(String etag, T body) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .body(body);
+    }
+
+    private String exerciseETag(Exercise exercise) {
+        if (exercise.getUpdatedAt() == null) return null;
+        long updated = exercise.getUpdatedAt().toInstant(ZoneOffset.UTC).toEpochMilli();
+        return "\"" + exercise.getId() + "-" + Long.toString(updated, 36) + "\"";
     }
 }
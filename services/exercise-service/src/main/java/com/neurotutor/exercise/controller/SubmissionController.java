@@ -3,10 +3,13 @@ package com.neurotutor.exercise.controller;
 import com.neurotutor.exercise.dto.SubmitExerciseRequest;
 import com.neurotutor.exercise.dto.SubmitExerciseResponse;
 import com.neurotutor.exercise.model.Submission;
+import com.neurotutor.exercise.service.IdempotencyStore;
 import com.neurotutor.exercise.service.SubmissionService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -17,20 +20,53 @@ import java.util.List;
 public class SubmissionController {
 
     private final SubmissionService submissionService;
+    private final IdempotencyStore idempotencyStore;
 
     // ✅ Envoi réponse (mode simple ou steps)
+    // ?async=true : réponse immédiate (feedbackStatus=PENDING si l'AI doit encore analyser les étapes),
+    // résultat définitif sur GET /events/{submissionId}
+    // En-tête Idempotency-Key : un renvoi (même clé, même userId, même requête) rejoue la première réponse
+    // (Idempotent-Replayed: true) au lieu de créer une nouvelle Submission
     @PostMapping("/{exerciseId}")
     public ResponseEntity<SubmitExerciseResponse> submit(
             @PathVariable String exerciseId,
-            @RequestBody SubmitExerciseRequest request
+            @RequestBody SubmitExerciseRequest request,
+            @RequestParam(defaultValue = "false") boolean async,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
     ) {
-        return ResponseEntity.ok(submissionService.submit(exerciseId, request));
+        if (idempotencyKey == null || idempotencyKey.isBlank() || request == null || request.getUserId() == null) {
+            return ResponseEntity.ok(submissionService.submit(exerciseId, request, async));
+        }
+
+        IdempotencyStore.Result<SubmitExerciseResponse> result = idempotencyStore.execute(
+                idempotencyKey.trim(),
+                request.getUserId(),
+                IdempotencyStore.fingerprint(exerciseId, async, request),
+                () -> submissionService.submit(exerciseId, request, async));
+
+        return ResponseEntity.ok()
+                .header("Idempotent-Replayed", String.valueOf(result.replayed()))
+                .body(result.value());
+    }
+
+    // ✅ SSE : un événement "feedback" avec la soumission complétée, puis fin du flux
+    @GetMapping(value = "/events/{submissionId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@PathVariable String submissionId) {
+        return submissionService.subscribe(submissionId);
     }
 
     // ✅ IMPORTANT: dashboard -> récupérer les tentatives d'un utilisateur
+    // ?limit=...&cursor=... -> page keyset {value, Count, nextCursor} ; sans paramètre -> liste complète
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Submission>> listByUser(@PathVariable String userId) {
-        return ResponseEntity.ok(submissionService.listByUser(userId));
+    public ResponseEntity<?> listByUser(
+            @PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(submissionService.listByUser(userId));
+        }
+        return ResponseEntity.ok(submissionService.listByUserPage(userId, cursor, limit));
     }
 
     // ✅ Optionnel: tentatives d’un user pour un exercice précis
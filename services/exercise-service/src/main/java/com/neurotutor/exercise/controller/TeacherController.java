@@ -1,13 +1,19 @@
 package com.neurotutor.exercise.controller;
 
+import com.neurotutor.exercise.dto.ImportReportDto;
 import com.neurotutor.exercise.dto.StudentProgressDto;
 import com.neurotutor.exercise.model.Exercise;
+import com.neurotutor.exercise.service.ExerciseImportService;
 import com.neurotutor.exercise.service.ExerciseService;
 import com.neurotutor.exercise.service.TeacherProgressService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/v1/teacher")
 @RequiredArgsConstructor
@@ -16,6 +22,7 @@ public class TeacherController {
 
     private final ExerciseService exerciseService;
     private final TeacherProgressService teacherProgressService;
+    private final ExerciseImportService exerciseImportService;
 
     // ✅ CREATE exercise
     @PostMapping("/exercises")
@@ -23,6 +30,12 @@ public class TeacherController {
         return ResponseEntity.ok(exerciseService.createExercise(body));
     }
 
+    // ✅ BULK create : upsert par contentHash, renvoyer le même lot ne crée pas de doublons
+    @PostMapping("/exercises/bulk")
+    public ResponseEntity<List<Exercise>> bulkCreate(@RequestBody List<Exercise> body) {
+        return ResponseEntity.ok(exerciseService.bulkCreate(body));
+    }
+
     // ✅ UPDATE exercise
     @PutMapping("/exercises/{id}")
     public ResponseEntity<Exercise> update(@PathVariable String id, @RequestBody Exercise patch) {
@@ -36,6 +49,12 @@ public class TeacherController {
         return ResponseEntity.noContent().build();
     }
 
+    // ✅ IMPORT NDJSON en flux (un exercice par ligne) -> rapport avec erreurs par ligne
+    @PostMapping(value = "/exercises/import", consumes = {"application/x-ndjson", "application/json", "text/plain"})
+    public ResponseEntity<ImportReportDto> importExercises(InputStream body) throws IOException {
+        return ResponseEntity.ok(exerciseImportService.importNdjson(body));
+    }
+
     // ✅ Progress student
     @GetMapping("/students/{userId}/progress")
     public ResponseEntity<StudentProgressDto> progress(@PathVariable String userId) {
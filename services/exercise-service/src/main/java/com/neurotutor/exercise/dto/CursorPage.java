@@ -0,0 +1,26 @@
+package com.neurotutor.exercise.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page "keyset" : même forme que les listes existantes ({value, Count})
+ * + nextCursor (null = dernière page).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> value;
+    private String nextCursor;
+
+    @JsonProperty("Count")
+    public int getCount() {
+        return value == null ? 0 : value.size();
+    }
+}
@@ -0,0 +1,55 @@
+package com.neurotutor.exercise.dto;
+
+import com.neurotutor.exercise.model.Exercise;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Vue "carte" d'un exercice pour les listes : pas de solution, d'étapes ni d'indices.
+ * tags et statementExcerpt alimentent la recherche côté client de la page Exercices.
+ * Le document complet n'est renvoyé que par GET /api/v1/exercises/{id}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExerciseSummaryDto {
+
+    static final int EXCERPT_LENGTH = 160;
+
+    private String id;
+    private String title;
+    private String description;
+    private String difficulty;
+    private List<String> topics;
+    private List<String> tags;
+    private String statementExcerpt;
+    private Integer points;
+    private Integer estimatedTime;
+
+    public static ExerciseSummaryDto from(Exercise ex) {
+        return ExerciseSummaryDto.builder()
+                .id(ex.getId())
+                .title(ex.getTitle())
+                .description(ex.getDescription())
+                .difficulty(ex.getDifficulty())
+                .topics(ex.getTopics())
+                .tags(ex.getTags())
+                .statementExcerpt(excerpt(ex.getProblemStatement()))
+                .points(ex.getPoints())
+                .estimatedTime(ex.getEstimatedTime())
+                .build();
+    }
+
+    // début de l'énoncé, espaces compactés : de quoi chercher sans envoyer l'énoncé complet
+    static String excerpt(String statement) {
+        if (statement == null) return null;
+        String s = statement.trim().replaceAll("\\s+", " ");
+        if (s.length() <= EXCERPT_LENGTH) return s;
+        return s.substring(0, EXCERPT_LENGTH).trim() + "…";
+    }
+}
@@ -0,0 +1,25 @@
+package com.neurotutor.exercise.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetSearchResponse {
+
+    private List<ExerciseSummaryDto> value;
+
+    @JsonProperty("Count")
+    private int count;
+
+    // facette -> valeur -> nombre d'exercices du résultat
+    private Map<String, Map<String, Integer>> facets;
+}
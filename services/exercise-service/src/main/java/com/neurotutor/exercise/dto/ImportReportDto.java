@@ -0,0 +1,33 @@
+package com.neurotutor.exercise.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportReportDto {
+
+    private int received;
+    private int inserted;
+    // déjà présents (même contentHash) -> mis à jour
+    private int updated;
+    // même contenu répété dans le fichier
+    private int duplicates;
+    private int failed;
+
+    // erreurs par ligne (tronquée : seules les premières sont renvoyées)
+    private List<LineError> errors = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineError {
+        private long line;
+        private String message;
+    }
+}
@@ -33,13 +33,17 @@ public class SubmitExerciseResponse {
 
     private Double aiGlobalScore;
 
+    // ✅ NEW: mode async : PENDING => résultat définitif poussé sur /api/v1/submissions/events/{submissionId}
+    private String feedbackStatus;
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
     public static class StepFeedback {
         private int index;
         private String step;
-        private boolean correct;
+        // null = étape non corrigée (AI indisponible) : ni juste ni fausse
+        private Boolean correct;
         private String hint;
         private String correctedStep;
     }
@@ -0,0 +1,17 @@
+package com.neurotutor.exercise.dto.ia;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AiStepEvalBatchRequest {
+
+    @JsonProperty("requests")
+    private List<AiStepEvalRequest> requests;
+}
@@ -0,0 +1,18 @@
+package com.neurotutor.exercise.dto.ia;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AiStepEvalBatchResponse {
+
+    // ✅ même ordre que AiStepEvalBatchRequest.requests
+    @JsonProperty("responses")
+    private List<AiStepEvalResponse> responses;
+}
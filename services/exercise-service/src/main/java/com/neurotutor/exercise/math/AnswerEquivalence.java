@@ -0,0 +1,116 @@
+package com.neurotutor.exercise.math;
+
+import com.neurotutor.exercise.math.MathExpression.Node;
+import com.neurotutor.exercise.math.MathExpression.Part;
+import com.neurotutor.exercise.math.MathExpression.Var;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Équivalence symbolique entre la solution attendue et la réponse d'un élève.
+ *
+ * La valeur ne suffit pas : la réponse doit aussi être sous la même forme que la solution,
+ * sinon recopier l'énoncé serait accepté. Règles, selon la solution attendue :
+ * - nombre          : un nombre écrit simplement de même valeur (5, 5.0, 10/2) ;
+ * - x = valeur      : x = valeur équivalente, dans un sens ou dans l'autre, ou la valeur seule ;
+ * - forme factorisée: mêmes facteurs et même constante, à l'ordre et au signe près ;
+ * - forme développée: une forme développée égale ;
+ * - autre équation  : équation proportionnelle (y - 2x = 1 et 2y - 4x = 2).
+ * Plusieurs parties (x=3 ou x=-3) : mêmes parties, dans n'importe quel ordre.
+ */
+public final class AnswerEquivalence {
+
+    private final List<Part> expected;
+
+    private AnswerEquivalence(List<Part> expected) {
+        this.expected = expected;
+    }
+
+    /**
+     * Prépare une solution attendue (à mettre en cache : l'analyse n'est faite qu'une fois).
+     *
+     * @throws IllegalArgumentException si la solution n'est pas une expression supportée
+     */
+    public static AnswerEquivalence compile(String solution) {
+        return new AnswerEquivalence(MathParser.parse(solution));
+    }
+
+    /**
+     * Faux si la réponse ne se lit pas ou n'est pas équivalente (jamais d'exception).
+     */
+    public boolean matches(String answer) {
+        try {
+            List<Part> given = new ArrayList<>(MathParser.parse(answer));
+            if (given.size() != expected.size()) return false;
+
+            for (Part e : expected) {
+                Part found = null;
+                for (Part g : given) {
+                    if (matches(e, g)) {
+                        found = g;
+                        break;
+                    }
+                }
+                if (found == null) return false;
+                given.remove(found);
+            }
+            return true;
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            return false;
+        }
+    }
+
+    private static boolean matches(Part expected, Part given) {
+        if (!expected.isEquation()) {
+            return !given.isEquation() && sameExpression(expected.left(), given.left());
+        }
+
+        Solved solved = solvedForm(expected);
+        if (solved != null) {
+            if (!given.isEquation()) return sameExpression(solved.value, given.left());
+            Solved g = solvedForm(given);
+            return g != null && g.variable.equals(solved.variable) && sameExpression(solved.value, g.value);
+        }
+
+        if (!given.isEquation()) return false;
+        Polynomial e = zeroSide(expected);
+        Polynomial g = zeroSide(given);
+        if (e.isZero() || g.isZero()) return false;
+        // proportionnelles : e * lc(g) == g * lc(e)
+        return e.scale(g.leadingCoefficient()).equals(g.scale(e.leadingCoefficient()));
+    }
+
+    private static boolean sameExpression(Node expected, Node given) {
+        if (!MathExpression.containsVariable(expected)) {
+            return MathExpression.isSimpleNumber(given)
+                    && MathExpression.eval(expected).constantValue().equals(MathExpression.eval(given).constantValue());
+        }
+        if (MathExpression.isFactored(expected)) {
+            return MathExpression.isFactored(given)
+                    && MathExpression.factorize(expected).equals(MathExpression.factorize(given));
+        }
+        if (MathExpression.isExpanded(expected) && !MathExpression.isExpanded(given)) {
+            return false;
+        }
+        return MathExpression.eval(expected).sameAs(MathExpression.eval(given));
+    }
+
+    // left - right = 0, dénominateurs chassés
+    private static Polynomial zeroSide(Part equation) {
+        return MathExpression.eval(equation.left()).subtract(MathExpression.eval(equation.right())).numerator();
+    }
+
+    private static Solved solvedForm(Part equation) {
+        if (equation.left() instanceof Var v && !MathExpression.containsVariable(equation.right(), v.name())) {
+            return new Solved(v.name(), equation.right());
+        }
+        if (equation.right() instanceof Var v && !MathExpression.containsVariable(equation.left(), v.name())) {
+            return new Solved(v.name(), equation.left());
+        }
+        return null;
+    }
+
+    private record Solved(String variable, Node value) {
+    }
+}
@@ -0,0 +1,107 @@
+package com.neurotutor.exercise.math;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Nombre rationnel exact (dénominateur > 0, fraction irréductible).
+ */
+public final class BigRational {
+
+    public static final BigRational ZERO = new BigRational(BigInteger.ZERO, BigInteger.ONE);
+    public static final BigRational ONE = new BigRational(BigInteger.ONE, BigInteger.ONE);
+
+    private final BigInteger num;
+    private final BigInteger den;
+
+    private BigRational(BigInteger num, BigInteger den) {
+        this.num = num;
+        this.den = den;
+    }
+
+    public static BigRational of(long n) {
+        return new BigRational(BigInteger.valueOf(n), BigInteger.ONE);
+    }
+
+    public static BigRational of(BigInteger num, BigInteger den) {
+        if (den.signum() == 0) throw new ArithmeticException("Division by zero");
+        if (den.signum() < 0) {
+            num = num.negate();
+            den = den.negate();
+        }
+        BigInteger g = num.gcd(den);
+        if (!g.equals(BigInteger.ONE) && g.signum() != 0) {
+            num = num.divide(g);
+            den = den.divide(g);
+        }
+        return new BigRational(num, den);
+    }
+
+    /**
+     * "12", "3.25" -> valeur exacte (pas de passage par double).
+     */
+    public static BigRational parse(String decimal) {
+        BigDecimal d = new BigDecimal(decimal);
+        if (d.scale() <= 0) return of(d.toBigIntegerExact(), BigInteger.ONE);
+        return of(d.unscaledValue(), BigInteger.TEN.pow(d.scale()));
+    }
+
+    public BigRational add(BigRational o) {
+        return of(num.multiply(o.den).add(o.num.multiply(den)), den.multiply(o.den));
+    }
+
+    public BigRational subtract(BigRational o) {
+        return add(o.negate());
+    }
+
+    public BigRational multiply(BigRational o) {
+        return of(num.multiply(o.num), den.multiply(o.den));
+    }
+
+    public BigRational divide(BigRational o) {
+        return of(num.multiply(o.den), den.multiply(o.num));
+    }
+
+    public BigRational negate() {
+        return new BigRational(num.negate(), den);
+    }
+
+    public BigRational pow(int exp) {
+        if (exp < 0) return ONE.divide(this).pow(-exp);
+        return new BigRational(num.pow(exp), den.pow(exp));
+    }
+
+    public boolean isZero() {
+        return num.signum() == 0;
+    }
+
+    public boolean isInteger() {
+        return den.equals(BigInteger.ONE);
+    }
+
+    public int signum() {
+        return num.signum();
+    }
+
+    public int intValueExact() {
+        if (!isInteger()) throw new ArithmeticException("Not an integer: " + this);
+        return num.intValueExact();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BigRational r)) return false;
+        return num.equals(r.num) && den.equals(r.den);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * num.hashCode() + den.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return isInteger() ? num.toString() : num + "/" + den;
+    }
+}
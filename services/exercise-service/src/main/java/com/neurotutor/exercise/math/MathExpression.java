@@ -0,0 +1,271 @@
+package com.neurotutor.exercise.math;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Arbre syntaxique d'une réponse mathématique (produit par MathParser).
+ * On garde la structure telle que saisie : elle sert à distinguer une forme
+ * développée d'une forme factorisée, pas seulement à calculer la valeur.
+ */
+public final class MathExpression {
+
+    private MathExpression() {
+    }
+
+    public sealed interface Node permits Num, Var, Add, Mul, Div, Pow, Neg {
+    }
+
+    public record Num(BigRational value) implements Node {
+    }
+
+    public record Var(String name) implements Node {
+    }
+
+    public record Add(List<Node> terms) implements Node {
+    }
+
+    public record Mul(List<Node> factors) implements Node {
+    }
+
+    public record Div(Node numerator, Node denominator) implements Node {
+    }
+
+    public record Pow(Node base, int exponent) implements Node {
+    }
+
+    public record Neg(Node operand) implements Node {
+    }
+
+    /**
+     * Un morceau de réponse : une équation (left = right) ou une expression seule (right == null).
+     */
+    public record Part(Node left, Node right) {
+        public boolean isEquation() {
+            return right != null;
+        }
+    }
+
+    // ===== Évaluation symbolique =====
+
+    public static RationalFunction eval(Node node) {
+        if (node instanceof Num n) return RationalFunction.of(Polynomial.constant(n.value()));
+        if (node instanceof Var v) return RationalFunction.of(Polynomial.variable(v.name()));
+        if (node instanceof Neg n) return eval(n.operand()).negate();
+        if (node instanceof Pow p) return eval(p.base()).pow(p.exponent());
+        if (node instanceof Div d) return eval(d.numerator()).divide(eval(d.denominator()));
+        if (node instanceof Add a) {
+            RationalFunction sum = RationalFunction.of(Polynomial.ZERO);
+            for (Node t : a.terms()) sum = sum.add(eval(t));
+            return sum;
+        }
+        Mul m = (Mul) node;
+        RationalFunction product = RationalFunction.of(Polynomial.constant(BigRational.ONE));
+        for (Node f : m.factors()) product = product.multiply(eval(f));
+        return product;
+    }
+
+    /**
+     * Valeur exacte en un point (sans développer : (x+1)^12 reste 12 multiplications).
+     *
+     * @throws ArithmeticException division par zéro en ce point, ou variable sans valeur
+     */
+    public static BigRational evaluate(Node node, Map<String, BigRational> point) {
+        if (node instanceof Num n) return n.value();
+        if (node instanceof Var v) {
+            BigRational x = point.get(v.name());
+            if (x == null) throw new ArithmeticException("No value for " + v.name());
+            return x;
+        }
+        if (node instanceof Neg n) return evaluate(n.operand(), point).negate();
+        if (node instanceof Pow p) return evaluate(p.base(), point).pow(p.exponent());
+        if (node instanceof Div d) return evaluate(d.numerator(), point).divide(evaluate(d.denominator(), point));
+        if (node instanceof Add a) {
+            BigRational sum = BigRational.ZERO;
+            for (Node t : a.terms()) sum = sum.add(evaluate(t, point));
+            return sum;
+        }
+        BigRational product = BigRational.ONE;
+        for (Node f : ((Mul) node).factors()) product = product.multiply(evaluate(f, point));
+        return product;
+    }
+
+    public static Set<String> variables(Node node) {
+        Set<String> vars = new TreeSet<>();
+        collectVariables(node, vars);
+        return vars;
+    }
+
+    private static void collectVariables(Node node, Set<String> vars) {
+        if (node instanceof Var v) vars.add(v.name());
+        else if (node instanceof Neg n) collectVariables(n.operand(), vars);
+        else if (node instanceof Pow p) collectVariables(p.base(), vars);
+        else if (node instanceof Div d) {
+            collectVariables(d.numerator(), vars);
+            collectVariables(d.denominator(), vars);
+        } else {
+            for (Node child : children(node)) collectVariables(child, vars);
+        }
+    }
+
+    /**
+     * Vrai si une variable apparaît au dénominateur (1/x, (x+1)^-2).
+     */
+    public static boolean hasVariableDenominator(Node node) {
+        if (node instanceof Div d) {
+            return containsVariable(d.denominator()) || hasVariableDenominator(d.numerator());
+        }
+        if (node instanceof Pow p) return (p.exponent() < 0 && containsVariable(p.base())) || hasVariableDenominator(p.base());
+        if (node instanceof Neg n) return hasVariableDenominator(n.operand());
+        for (Node child : children(node)) {
+            if (hasVariableDenominator(child)) return true;
+        }
+        return false;
+    }
+
+    // ===== Analyse de forme =====
+
+    public static boolean containsVariable(Node node) {
+        return containsVariable(node, null);
+    }
+
+    /**
+     * name == null : n'importe quelle variable.
+     */
+    public static boolean containsVariable(Node node, String name) {
+        if (node instanceof Num) return false;
+        if (node instanceof Var v) return name == null || v.name().equals(name);
+        if (node instanceof Neg n) return containsVariable(n.operand(), name);
+        if (node instanceof Pow p) return containsVariable(p.base(), name);
+        if (node instanceof Div d) return containsVariable(d.numerator(), name) || containsVariable(d.denominator(), name);
+        for (Node child : children(node)) {
+            if (containsVariable(child, name)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Nombre « écrit simplement » : 5, -5, 2.5, 10/2, -3/4.
+     * "3+4*2" vaut 11 mais n'est pas une réponse à « calculer 3+4×2 ».
+     */
+    public static boolean isSimpleNumber(Node node) {
+        if (node instanceof Neg n) node = n.operand();
+        if (node instanceof Num) return true;
+        if (node instanceof Div d) {
+            Node top = d.numerator() instanceof Neg n ? n.operand() : d.numerator();
+            return top instanceof Num && d.denominator() instanceof Num;
+        }
+        return false;
+    }
+
+    /**
+     * Forme développée : une somme de monômes, aucune somme littérale dans un produit,
+     * une puissance ou un dénominateur. 2x^2 - x/2 + 1 oui, x(x+1) non.
+     */
+    public static boolean isExpanded(Node node) {
+        if (node instanceof Add a) {
+            for (Node t : a.terms()) {
+                if (!isMonomial(t)) return false;
+            }
+            return true;
+        }
+        return isMonomial(node);
+    }
+
+    private static boolean isMonomial(Node node) {
+        if (node instanceof Num || node instanceof Var) return true;
+        if (node instanceof Add) return !containsVariable(node);
+        if (node instanceof Neg n) return isMonomial(n.operand());
+        if (node instanceof Pow p) return isMonomial(p.base()) && p.exponent() >= 0;
+        if (node instanceof Div d) return isMonomial(d.numerator()) && !containsVariable(d.denominator());
+        for (Node f : ((Mul) node).factors()) {
+            if (!isMonomial(f)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Forme factorisée : produit (ou puissance) au sommet, contenant au moins
+     * une somme littérale. (x-3)(x+3), 2(x+1), (x-1)^2.
+     */
+    public static boolean isFactored(Node node) {
+        if (node instanceof Neg n) return isFactored(n.operand());
+        if (node instanceof Div d && !containsVariable(d.denominator())) return isFactored(d.numerator());
+        if (node instanceof Pow p) return p.exponent() > 1 && (p.base() instanceof Add a && containsVariable(a) || isFactored(p.base()));
+        if (node instanceof Mul m) {
+            for (Node f : m.factors()) {
+                if (f instanceof Add a && containsVariable(a) || isFactored(f)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Décomposition canonique d'une forme factorisée : constante * produit de facteurs unitaires.
+     * Deux écritures sont équivalentes si elles ont la même constante et les mêmes facteurs
+     * (à l'ordre près) : (x+3)(x-3) = (3+x)(x-3), 2(x-1) = (2x-2) mais != x^2-9.
+     */
+    public static Factorization factorize(Node node) {
+        Factorization acc = new Factorization();
+        collectFactors(node, 1, acc);
+        acc.factors.sort((a, b) -> a.toString().compareTo(b.toString()));
+        return acc;
+    }
+
+    private static void collectFactors(Node node, int exp, Factorization acc) {
+        if (node instanceof Neg n) {
+            acc.constant = acc.constant.multiply(BigRational.ONE.negate().pow(exp));
+            collectFactors(n.operand(), exp, acc);
+        } else if (node instanceof Mul m) {
+            for (Node f : m.factors()) collectFactors(f, exp, acc);
+        } else if (node instanceof Pow p && p.exponent() > 0) {
+            collectFactors(p.base(), exp * p.exponent(), acc);
+        } else if (node instanceof Div d && !containsVariable(d.denominator())) {
+            collectFactors(d.numerator(), exp, acc);
+            acc.constant = acc.constant.divide(eval(d.denominator()).constantValue().pow(exp));
+        } else {
+            Polynomial p = eval(node).toPolynomial();
+            if (p.isConstant()) {
+                acc.constant = acc.constant.multiply(p.constantValue().pow(exp));
+                return;
+            }
+            BigRational lc = p.leadingCoefficient();
+            acc.constant = acc.constant.multiply(lc.pow(exp));
+            Polynomial unit = p.scale(BigRational.ONE.divide(lc));
+            for (int i = 0; i < exp; i++) acc.factors.add(unit);
+        }
+    }
+
+    public static final class Factorization {
+        private BigRational constant = BigRational.ONE;
+        private final List<Polynomial> factors = new ArrayList<>();
+
+        public BigRational constant() {
+            return constant;
+        }
+
+        public List<Polynomial> factors() {
+            return Collections.unmodifiableList(factors);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Factorization f && constant.equals(f.constant) && factors.equals(f.factors);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * constant.hashCode() + factors.hashCode();
+        }
+    }
+
+    private static List<Node> children(Node node) {
+        if (node instanceof Add a) return a.terms();
+        if (node instanceof Mul m) return m.factors();
+        return List.of();
+    }
+}
@@ -0,0 +1,177 @@
+package com.neurotutor.exercise.math;
+
+import com.neurotutor.exercise.math.MathExpression.Add;
+import com.neurotutor.exercise.math.MathExpression.Div;
+import com.neurotutor.exercise.math.MathExpression.Mul;
+import com.neurotutor.exercise.math.MathExpression.Neg;
+import com.neurotutor.exercise.math.MathExpression.Node;
+import com.neurotutor.exercise.math.MathExpression.Num;
+import com.neurotutor.exercise.math.MathExpression.Part;
+import com.neurotutor.exercise.math.MathExpression.Pow;
+import com.neurotutor.exercise.math.MathExpression.Var;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Analyseur de réponses saisies par les élèves : "x = 10/2", "5=x", "(x-3)(x+3)",
+ * "2x² - 3,5x + 1", "x=3 ou x=-3", "x=2; y=1".
+ * Variables = lettres isolées (2xy = 2*x*y ; trois lettres d'affilée = un mot, refusé),
+ * multiplication implicite, virgule décimale, exposants entiers uniquement.
+ * Lève IllegalArgumentException sur toute saisie hors de ce cadre.
+ */
+public final class MathParser {
+
+    static final int MAX_LENGTH = 200;
+    static final int MAX_EXPONENT = 12;
+
+    private static final Pattern DECIMAL_COMMA = Pattern.compile("(\\d),(\\d)");
+    private static final Pattern PART_SEPARATOR = Pattern.compile("[;,]|\\s+(?:et|ou)\\s+");
+    // "Paris", "sqrt" : des mots, pas un produit de variables
+    private static final Pattern WORD = Pattern.compile("[a-z]{3,}");
+
+    private final String src;
+    private int pos;
+
+    private MathParser(String src) {
+        this.src = src;
+    }
+
+    /**
+     * Une réponse = une ou plusieurs parties (solutions multiples, systèmes).
+     */
+    public static List<Part> parse(String input) {
+        if (input == null || input.isBlank()) throw new IllegalArgumentException("Empty answer");
+        if (input.length() > MAX_LENGTH) throw new IllegalArgumentException("Answer too long");
+
+        List<Part> parts = new ArrayList<>();
+        for (String chunk : PART_SEPARATOR.split(normalize(input))) {
+            if (chunk.isBlank()) continue;
+            if (WORD.matcher(chunk).find()) throw new IllegalArgumentException("Not a math expression: " + chunk);
+            parts.add(new MathParser(chunk).part());
+        }
+        if (parts.isEmpty()) throw new IllegalArgumentException("Empty answer");
+        return parts;
+    }
+
+    static String normalize(String input) {
+        String s = input.toLowerCase(Locale.ROOT)
+                .replace('−', '-').replace('–', '-')
+                .replace('×', '*').replace('·', '*').replace('∙', '*')
+                .replace('÷', '/').replace(':', '/')
+                .replace('[', '(').replace(']', ')')
+                .replace("²", "^2").replace("³", "^3");
+        return DECIMAL_COMMA.matcher(s).replaceAll("$1.$2");
+    }
+
+    private Part part() {
+        Node left = expression();
+        Node right = null;
+        if (accept('=')) right = expression();
+        skipSpaces();
+        if (pos < src.length()) throw error("Unexpected '" + src.charAt(pos) + "'");
+        return new Part(left, right);
+    }
+
+    // expression := term (('+' | '-') term)*
+    private Node expression() {
+        List<Node> terms = new ArrayList<>();
+        terms.add(term());
+        while (true) {
+            if (accept('+')) terms.add(term());
+            else if (accept('-')) terms.add(new Neg(term()));
+            else break;
+        }
+        return terms.size() == 1 ? terms.get(0) : new Add(terms);
+    }
+
+    // term := unary (('*' | '/') unary | facteur implicite)*
+    private Node term() {
+        Node left = unary();
+        while (true) {
+            if (accept('*')) left = multiply(left, unary());
+            else if (accept('/')) left = new Div(left, unary());
+            else if (peekImplicitFactor()) left = multiply(left, power());
+            else return left;
+        }
+    }
+
+    private Node unary() {
+        if (accept('-')) return new Neg(unary());
+        if (accept('+')) return unary();
+        return power();
+    }
+
+    // power := primary ('^' unary)? — exposant entier constant
+    private Node power() {
+        Node base = primary();
+        if (!accept('^')) return base;
+
+        RationalFunction exp = MathExpression.eval(unary());
+        if (!exp.isConstant() || !exp.constantValue().isInteger()) throw error("Non-integer exponent");
+        int e = exp.constantValue().intValueExact();
+        if (Math.abs(e) > MAX_EXPONENT) throw error("Exponent too large");
+        return new Pow(base, e);
+    }
+
+    private Node primary() {
+        skipSpaces();
+        if (pos >= src.length()) throw error("Unexpected end of input");
+
+        char c = src.charAt(pos);
+        if (c == '(') {
+            pos++;
+            Node inner = expression();
+            if (!accept(')')) throw error("Missing ')'");
+            return inner;
+        }
+        if (Character.isDigit(c) || c == '.') {
+            int start = pos;
+            while (pos < src.length() && (Character.isDigit(src.charAt(pos)) || src.charAt(pos) == '.')) pos++;
+            try {
+                return new Num(BigRational.parse(src.substring(start, pos)));
+            } catch (NumberFormatException e) {
+                throw error("Invalid number");
+            }
+        }
+        if (c >= 'a' && c <= 'z') {
+            pos++;
+            return new Var(String.valueOf(c));
+        }
+        throw error("Unexpected '" + c + "'");
+    }
+
+    private boolean peekImplicitFactor() {
+        skipSpaces();
+        if (pos >= src.length()) return false;
+        char c = src.charAt(pos);
+        return c == '(' || (c >= 'a' && c <= 'z');
+    }
+
+    private static Node multiply(Node left, Node right) {
+        List<Node> factors = new ArrayList<>();
+        if (left instanceof Mul m) factors.addAll(m.factors());
+        else factors.add(left);
+        factors.add(right);
+        return new Mul(factors);
+    }
+
+    private boolean accept(char expected) {
+        skipSpaces();
+        if (pos < src.length() && src.charAt(pos) == expected) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipSpaces() {
+        while (pos < src.length() && Character.isWhitespace(src.charAt(pos))) pos++;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at " + pos + " in \"" + src + "\"");
+    }
+}
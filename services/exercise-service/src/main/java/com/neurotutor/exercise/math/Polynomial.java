@@ -0,0 +1,196 @@
+package com.neurotutor.exercise.math;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Polynôme multivarié à coefficients rationnels, sous forme développée canonique.
+ * Monôme = variable -> exposant (TreeMap) ; les coefficients nuls ne sont jamais stockés.
+ */
+public final class Polynomial {
+
+    // garde-fou : (a+b+c)^12 & co ne doivent pas faire exploser la mémoire
+    static final int MAX_TERMS = 2000;
+
+    // degré total décroissant, puis ordre lexicographique : sert au coefficient dominant
+    private static final Comparator<Map<String, Integer>> MONOMIAL_ORDER =
+            Comparator.<Map<String, Integer>>comparingInt(Polynomial::degree).reversed()
+                    .thenComparing(Polynomial::monomialKey);
+
+    public static final Polynomial ZERO = new Polynomial(Collections.emptyMap());
+
+    private final Map<Map<String, Integer>, BigRational> terms;
+
+    private Polynomial(Map<Map<String, Integer>, BigRational> terms) {
+        this.terms = terms;
+    }
+
+    public static Polynomial constant(BigRational c) {
+        if (c.isZero()) return ZERO;
+        return new Polynomial(Map.of(Collections.emptyMap(), c));
+    }
+
+    public static Polynomial variable(String name) {
+        Map<String, Integer> mono = new TreeMap<>();
+        mono.put(name, 1);
+        return new Polynomial(Map.of(Collections.unmodifiableMap(mono), BigRational.ONE));
+    }
+
+    public Polynomial add(Polynomial o) {
+        Map<Map<String, Integer>, BigRational> out = new HashMap<>(terms);
+        for (Map.Entry<Map<String, Integer>, BigRational> e : o.terms.entrySet()) {
+            BigRational sum = out.getOrDefault(e.getKey(), BigRational.ZERO).add(e.getValue());
+            if (sum.isZero()) out.remove(e.getKey());
+            else out.put(e.getKey(), sum);
+        }
+        return new Polynomial(out);
+    }
+
+    public Polynomial subtract(Polynomial o) {
+        return add(o.negate());
+    }
+
+    public Polynomial negate() {
+        return scale(BigRational.ONE.negate());
+    }
+
+    public Polynomial scale(BigRational c) {
+        if (c.isZero()) return ZERO;
+        Map<Map<String, Integer>, BigRational> out = new HashMap<>();
+        terms.forEach((m, coef) -> out.put(m, coef.multiply(c)));
+        return new Polynomial(out);
+    }
+
+    public Polynomial multiply(Polynomial o) {
+        Map<Map<String, Integer>, BigRational> out = new HashMap<>();
+        for (Map.Entry<Map<String, Integer>, BigRational> a : terms.entrySet()) {
+            for (Map.Entry<Map<String, Integer>, BigRational> b : o.terms.entrySet()) {
+                Map<String, Integer> mono = new TreeMap<>(a.getKey());
+                b.getKey().forEach((v, e) -> mono.merge(v, e, Integer::sum));
+
+                Map<String, Integer> key = Collections.unmodifiableMap(mono);
+                BigRational sum = out.getOrDefault(key, BigRational.ZERO)
+                        .add(a.getValue().multiply(b.getValue()));
+                if (sum.isZero()) out.remove(key);
+                else out.put(key, sum);
+            }
+            if (out.size() > MAX_TERMS) throw new ArithmeticException("Polynomial too large");
+        }
+        return new Polynomial(out);
+    }
+
+    public Polynomial pow(int exp) {
+        if (exp < 0) throw new ArithmeticException("Negative exponent on polynomial");
+        Polynomial result = constant(BigRational.ONE);
+        for (int i = 0; i < exp; i++) result = result.multiply(this);
+        return result;
+    }
+
+    public boolean isZero() {
+        return terms.isEmpty();
+    }
+
+    public boolean isConstant() {
+        return terms.isEmpty() || (terms.size() == 1 && terms.containsKey(Collections.emptyMap()));
+    }
+
+    public BigRational constantValue() {
+        if (!isConstant()) throw new ArithmeticException("Not a constant: " + this);
+        return terms.getOrDefault(Collections.emptyMap(), BigRational.ZERO);
+    }
+
+    public Set<String> variables() {
+        Set<String> vars = new TreeSet<>();
+        terms.keySet().forEach(m -> vars.addAll(m.keySet()));
+        return vars;
+    }
+
+    public BigRational leadingCoefficient() {
+        return terms.entrySet().stream()
+                .min(Map.Entry.comparingByKey(MONOMIAL_ORDER))
+                .map(Map.Entry::getValue)
+                .orElse(BigRational.ZERO);
+    }
+
+    /**
+     * Coefficients d'un polynôme en une seule variable : indice = exposant.
+     *
+     * @throws ArithmeticException si une autre variable apparaît
+     */
+    public BigRational[] coefficients(String variable) {
+        int degree = 0;
+        for (Map<String, Integer> mono : terms.keySet()) {
+            if (!mono.isEmpty() && !(mono.size() == 1 && mono.containsKey(variable)))
+                throw new ArithmeticException("Not univariate in " + variable + ": " + this);
+            degree = Math.max(degree, mono.getOrDefault(variable, 0));
+        }
+        BigRational[] out = new BigRational[degree + 1];
+        Arrays.fill(out, BigRational.ZERO);
+        terms.forEach((mono, c) -> out[mono.getOrDefault(variable, 0)] = c);
+        return out;
+    }
+
+    /**
+     * Valeur du polynôme pour des valeurs données des variables.
+     */
+    public BigRational evaluate(Map<String, BigRational> values) {
+        BigRational sum = BigRational.ZERO;
+        for (Map.Entry<Map<String, Integer>, BigRational> t : terms.entrySet()) {
+            BigRational term = t.getValue();
+            for (Map.Entry<String, Integer> v : t.getKey().entrySet()) {
+                BigRational x = values.get(v.getKey());
+                if (x == null) throw new ArithmeticException("No value for " + v.getKey());
+                term = term.multiply(x.pow(v.getValue()));
+            }
+            sum = sum.add(term);
+        }
+        return sum;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Polynomial p && terms.equals(p.terms));
+    }
+
+    @Override
+    public int hashCode() {
+        return terms.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        if (terms.isEmpty()) return "0";
+        StringBuilder sb = new StringBuilder();
+        terms.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(MONOMIAL_ORDER))
+                .forEach(t -> {
+                    if (sb.length() > 0) sb.append(" + ");
+                    sb.append(t.getValue());
+                    String key = monomialKey(t.getKey());
+                    if (!key.isEmpty()) sb.append('*').append(key);
+                });
+        return sb.toString();
+    }
+
+    private static int degree(Map<String, Integer> mono) {
+        int d = 0;
+        for (int e : mono.values()) d += e;
+        return d;
+    }
+
+    private static String monomialKey(Map<String, Integer> mono) {
+        StringBuilder sb = new StringBuilder();
+        mono.forEach((v, e) -> {
+            if (sb.length() > 0) sb.append('*');
+            sb.append(v);
+            if (e != 1) sb.append('^').append(e);
+        });
+        return sb.toString();
+    }
+}
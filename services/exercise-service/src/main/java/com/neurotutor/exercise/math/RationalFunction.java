@@ -0,0 +1,83 @@
+package com.neurotutor.exercise.math;
+
+/**
+ * Fraction de polynômes num / den, non réduite : l'égalité se teste par produit en croix.
+ */
+public final class RationalFunction {
+
+    private final Polynomial num;
+    private final Polynomial den;
+
+    private RationalFunction(Polynomial num, Polynomial den) {
+        if (den.isZero()) throw new ArithmeticException("Division by zero");
+        this.num = num;
+        this.den = den;
+    }
+
+    public static RationalFunction of(Polynomial p) {
+        return new RationalFunction(p, Polynomial.constant(BigRational.ONE));
+    }
+
+    public RationalFunction add(RationalFunction o) {
+        if (den.equals(o.den)) return new RationalFunction(num.add(o.num), den);
+        return new RationalFunction(num.multiply(o.den).add(o.num.multiply(den)), den.multiply(o.den));
+    }
+
+    public RationalFunction subtract(RationalFunction o) {
+        return add(o.negate());
+    }
+
+    public RationalFunction negate() {
+        return new RationalFunction(num.negate(), den);
+    }
+
+    public RationalFunction multiply(RationalFunction o) {
+        return new RationalFunction(num.multiply(o.num), den.multiply(o.den));
+    }
+
+    public RationalFunction divide(RationalFunction o) {
+        return new RationalFunction(num.multiply(o.den), den.multiply(o.num));
+    }
+
+    public RationalFunction pow(int exp) {
+        if (exp < 0) return new RationalFunction(den, num).pow(-exp);
+        return new RationalFunction(num.pow(exp), den.pow(exp));
+    }
+
+    public Polynomial numerator() {
+        return num;
+    }
+
+    public Polynomial denominator() {
+        return den;
+    }
+
+    /**
+     * Vrai si le dénominateur est constant : la fraction est alors un polynôme.
+     */
+    public boolean isPolynomial() {
+        return den.isConstant();
+    }
+
+    public Polynomial toPolynomial() {
+        if (!isPolynomial()) throw new ArithmeticException("Not a polynomial");
+        return num.scale(BigRational.ONE.divide(den.constantValue()));
+    }
+
+    public boolean isConstant() {
+        return num.isConstant() && den.isConstant();
+    }
+
+    public BigRational constantValue() {
+        return num.constantValue().divide(den.constantValue());
+    }
+
+    public boolean sameAs(RationalFunction o) {
+        return num.multiply(o.den).equals(o.num.multiply(den));
+    }
+
+    @Override
+    public String toString() {
+        return isPolynomial() ? toPolynomial().toString() : "(" + num + ") / (" + den + ")";
+    }
+}
@@ -0,0 +1,281 @@
+package com.neurotutor.exercise.math;
+
+import com.neurotutor.exercise.math.MathExpression.Add;
+import com.neurotutor.exercise.math.MathExpression.Mul;
+import com.neurotutor.exercise.math.MathExpression.Neg;
+import com.neurotutor.exercise.math.MathExpression.Node;
+import com.neurotutor.exercise.math.MathExpression.Part;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Vérifie localement une suite d'étapes : chaque étape doit être équivalente à la précédente.
+ * L'équivalence est testée par substitution en points rationnels tirés au hasard, en arithmétique
+ * exacte (pas d'epsilon) : deux expressions différentes de degré d ne coïncident sur un point
+ * aléatoire qu'avec une probabilité <= d / taille de l'échantillon, et on prend plusieurs points.
+ *
+ * Trois sortes d'étapes :
+ * - une valeur ("3 + 10", "= 13") : même valeur que l'étape précédente ;
+ * - une équation ("2x = 10", "x = 3 ou x = -3") : mêmes solutions réelles. Vrai si (gauche - droite)
+ *   est proportionnel à celui de l'étape précédente ; sinon seul le cas d'une seule inconnue où l'une
+ *   des deux équations est du premier degré est tranché (racine r : l'autre équation doit avoir r pour
+ *   seule solution réelle) ; "ou" = produit des équations ;
+ * - un calcul numérique ("3 + 2*5 = 3 + 10 = 13") : vrai par lui-même, puis vaut sa dernière valeur.
+ * Verdict null = indécidable ici (texte libre, système, inconnue au dénominateur...) : à confier à l'AI.
+ */
+public final class StepChainValidator {
+
+    static final int POINTS = 6;
+    private static final int MAX_ATTEMPTS = 30;
+
+    // connecteurs usuels en tête d'étape
+    private static final Pattern LEADING_WORDS = Pattern.compile(
+            "^\\s*(?:(?:donc|alors|soit|on a|d'où|d'ou|<=>|⇔|=>|⇒)\\s*[:,]?\\s*)+", Pattern.CASE_INSENSITIVE);
+
+    private StepChainValidator() {
+    }
+
+    /**
+     * Un verdict par étape : TRUE, FALSE ou null (indécidable).
+     *
+     * @param start énoncé mathématique de départ ("2x = 10"), null si inconnu
+     */
+    public static List<Boolean> validate(String start, List<String> steps) {
+        List<Boolean> verdicts = new ArrayList<>();
+        if (steps == null) return verdicts;
+
+        Claim previous = start != null ? claim(start) : null;
+        for (String step : steps) {
+            Claim current = claim(step);
+            verdicts.add(verdict(previous, current));
+            previous = current;
+        }
+        return verdicts;
+    }
+
+    private static Boolean verdict(Claim previous, Claim current) {
+        if (current == null) return null;
+        if (current.selfCheck != null && !current.selfCheck) return false;
+
+        Boolean linked = null;
+        if (previous != null && previous.kind == current.kind) {
+            try {
+                if (current.kind == Kind.VALUE) linked = sameValue(previous.node, current.node);
+                else linked = sameSolutions(previous.node, current.node);
+            } catch (ArithmeticException e) {
+                linked = null;
+            }
+        }
+        // un calcul numérique exact reste juste même sans lien avec l'étape précédente
+        if (linked == null && current.selfCheck != null) return true;
+        return linked;
+    }
+
+    // ===== Lecture d'une étape =====
+
+    private enum Kind { VALUE, EQUATION }
+
+    /**
+     * selfCheck : résultat du calcul "a = b = c" contenu dans l'étape, null si ce n'en est pas un.
+     */
+    private record Claim(Kind kind, Node node, Boolean selfCheck) {
+    }
+
+    private static Claim claim(String raw) {
+        if (raw == null || raw.isBlank()) return null;
+        String step = LEADING_WORDS.matcher(raw).replaceFirst("").trim();
+        if (step.startsWith("=")) step = step.substring(1);
+
+        try {
+            List<Part> parts;
+            try {
+                parts = MathParser.parse(step);
+            } catch (IllegalArgumentException e) {
+                // "3 + 2*5 = 3 + 10 = 13" : plusieurs '=' dans une même partie
+                String[] segments = step.split("=", -1);
+                if (segments.length > 2) return numericChain(segments);
+                throw e;
+            }
+            return parts.size() == 1 ? single(parts.get(0)) : disjunction(parts);
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            return null;
+        }
+    }
+
+    private static Claim single(Part part) {
+        if (!part.isEquation()) {
+            if (MathExpression.hasVariableDenominator(part.left())) return null;
+            return new Claim(Kind.VALUE, part.left(), null);
+        }
+        if (!MathExpression.containsVariable(part.left()) && !MathExpression.containsVariable(part.right())) {
+            boolean ok = MathExpression.evaluate(part.left(), Map.of()).equals(MathExpression.evaluate(part.right(), Map.of()));
+            return new Claim(Kind.VALUE, part.right(), ok);
+        }
+        Node zero = zeroSide(part);
+        return MathExpression.hasVariableDenominator(zero) ? null : new Claim(Kind.EQUATION, zero, null);
+    }
+
+    // "x = 3 ou x = -3" : (x - 3)(x + 3) = 0. Un système (plusieurs inconnues) reste indécidable.
+    private static Claim disjunction(List<Part> parts) {
+        Set<String> vars = new TreeSet<>();
+        List<Node> factors = new ArrayList<>();
+        for (Part p : parts) {
+            if (!p.isEquation()) return null;
+            Node zero = zeroSide(p);
+            if (MathExpression.hasVariableDenominator(zero)) return null;
+            vars.addAll(MathExpression.variables(zero));
+            factors.add(zero);
+        }
+        if (vars.size() != 1) return null;
+        return new Claim(Kind.EQUATION, new Mul(factors), null);
+    }
+
+    private static Claim numericChain(String[] segments) {
+        BigRational first = null;
+        boolean ok = true;
+        Node last = null;
+        for (String segment : segments) {
+            List<Part> parts = MathParser.parse(segment);
+            if (parts.size() != 1 || parts.get(0).isEquation()) return null;
+            last = parts.get(0).left();
+            if (MathExpression.containsVariable(last)) return null;
+
+            BigRational value = MathExpression.evaluate(last, Map.of());
+            if (first == null) first = value;
+            else ok &= first.equals(value);
+        }
+        return new Claim(Kind.VALUE, last, ok);
+    }
+
+    private static Node zeroSide(Part equation) {
+        return new Add(List.of(equation.left(), new Neg(equation.right())));
+    }
+
+    // ===== Substitution =====
+
+    private static boolean sameValue(Node a, Node b) {
+        Set<String> vars = new TreeSet<>(MathExpression.variables(a));
+        vars.addAll(MathExpression.variables(b));
+        if (vars.isEmpty()) {
+            return MathExpression.evaluate(a, Map.of()).equals(MathExpression.evaluate(b, Map.of()));
+        }
+
+        int checked = 0;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS && checked < POINTS; attempt++) {
+            Map<String, BigRational> point = randomPoint(vars);
+            BigRational va, vb;
+            try {
+                va = MathExpression.evaluate(a, point);
+                vb = MathExpression.evaluate(b, point);
+            } catch (ArithmeticException e) {
+                continue; // point sur un pôle : on en tire un autre
+            }
+            if (!va.equals(vb)) return false;
+            checked++;
+        }
+        if (checked < POINTS) throw new ArithmeticException("Not enough evaluation points");
+        return true;
+    }
+
+    /**
+     * Vrai / faux quand c'est décidable, null sinon. Des équations non proportionnelles peuvent
+     * avoir les mêmes solutions ((x-1)^2 = 0 et x - 1 = 0, x^3 = 8 et x = 2) : ne pas conclure à faux.
+     */
+    private static Boolean sameSolutions(Node f, Node g) {
+        if (proportional(f, g)) return true;
+
+        Set<String> vars = new TreeSet<>(MathExpression.variables(f));
+        vars.addAll(MathExpression.variables(g));
+        if (vars.size() != 1) return null;
+
+        String x = vars.iterator().next();
+        BigRational[] pf = MathExpression.eval(f).toPolynomial().coefficients(x);
+        BigRational[] pg = MathExpression.eval(g).toPolynomial().coefficients(x);
+        if (degree(pg) == 1) return onlyRealRoot(pf, pg[0].negate().divide(pg[1]));
+        if (degree(pf) == 1) return onlyRealRoot(pg, pf[0].negate().divide(pf[1]));
+        return null;
+    }
+
+    // f = k * g (k constant non nul) : f(p) / g(p) identique partout
+    private static boolean proportional(Node f, Node g) {
+        Set<String> vars = new TreeSet<>(MathExpression.variables(f));
+        vars.addAll(MathExpression.variables(g));
+
+        BigRational ratio = null;
+        int checked = 0;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS && checked < POINTS; attempt++) {
+            Map<String, BigRational> point = randomPoint(vars);
+            BigRational vf = MathExpression.evaluate(f, point);
+            BigRational vg = MathExpression.evaluate(g, point);
+
+            if (vf.isZero() && vg.isZero()) continue; // racine commune : ne dit rien sur k
+            if (vf.isZero() || vg.isZero()) return false;
+
+            BigRational r = vf.divide(vg);
+            if (ratio == null) ratio = r;
+            else if (!ratio.equals(r)) return false;
+            checked++;
+        }
+        if (checked < POINTS) throw new ArithmeticException("Not enough evaluation points");
+        return true;
+    }
+
+    /**
+     * r est-il l'unique solution réelle de p = 0 ? p est divisé par (x - r) tant que possible ;
+     * le quotient ne doit plus avoir de racine réelle (constante, ou degré 2 à discriminant négatif).
+     * Null au-delà du degré 2.
+     */
+    private static Boolean onlyRealRoot(BigRational[] p, BigRational r) {
+        if (degree(p) < 1 || !horner(p, r).isZero()) return false;
+        while (degree(p) >= 1 && horner(p, r).isZero()) p = divideByRoot(p, r);
+
+        return switch (degree(p)) {
+            case 0 -> true;
+            case 1 -> false; // autre racine, différente de r
+            case 2 -> p[1].multiply(p[1]).subtract(BigRational.of(4).multiply(p[2]).multiply(p[0])).signum() < 0;
+            default -> null;
+        };
+    }
+
+    private static int degree(BigRational[] p) {
+        int d = p.length - 1;
+        while (d > 0 && p[d].isZero()) d--;
+        return d;
+    }
+
+    private static BigRational horner(BigRational[] p, BigRational x) {
+        BigRational v = BigRational.ZERO;
+        for (int i = degree(p); i >= 0; i--) v = v.multiply(x).add(p[i]);
+        return v;
+    }
+
+    // division synthétique par (x - r), reste nul
+    private static BigRational[] divideByRoot(BigRational[] p, BigRational r) {
+        int d = degree(p);
+        BigRational[] q = new BigRational[d];
+        BigRational carry = BigRational.ZERO;
+        for (int i = d; i >= 1; i--) {
+            carry = carry.multiply(r).add(p[i]);
+            q[i - 1] = carry;
+        }
+        return q;
+    }
+
+    // rationnels "quelconques" : numérateur dans [-97, 97], dénominateur dans [1, 7]
+    private static Map<String, BigRational> randomPoint(Set<String> vars) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        Map<String, BigRational> point = new HashMap<>();
+        for (String v : vars) {
+            point.put(v, BigRational.of(BigInteger.valueOf(rnd.nextInt(-97, 98)), BigInteger.valueOf(rnd.nextInt(1, 8))));
+        }
+        return point;
+    }
+}
@@ -1,5 +1,6 @@
 package com.neurotutor.exercise.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -34,6 +35,13 @@ public class Exercise {
 
     private String solution;
 
+    /**
+     * Solution sous forme canonique (sans espaces, minuscules), calculée à l'écriture.
+     * Interne : jamais sérialisée vers les clients (elle révèle la réponse).
+     */
+    @JsonIgnore
+    private String normalizedSolution;
+
     private List<String> hints;
     private List<String> steps;
 
@@ -58,4 +66,11 @@ public class Exercise {
 
     private Boolean isPublished;
     private Boolean isApproved;
+
+    /**
+     * SHA-256 canonique de (title, problemStatement, solution) : clé d'upsert des imports.
+     * Interne : calculé côté serveur, ignoré en entrée comme en sortie JSON.
+     */
+    @JsonIgnore
+    private String contentHash;
 }
@@ -1,5 +1,6 @@
 package com.neurotutor.exercise.model;
 
+import com.neurotutor.exercise.dto.SubmitExerciseResponse;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -52,4 +53,10 @@ public class Submission {
 
     // ✅ NEW: score IA global (optionnel)
     private Double aiGlobalScore;
+
+    // ✅ NEW: mode asynchrone : feedback des étapes complété après coup par l'AI
+    // feedbackStatus = PENDING puis DONE / UNAVAILABLE (null : soumission synchrone)
+    private String feedbackStatus;
+    private List<SubmitExerciseResponse.StepFeedback> stepsFeedback;
+    private List<String> generatedSolutionSteps;
 }
@@ -1,11 +1,22 @@
 package com.neurotutor.exercise.repository;
 
 import com.neurotutor.exercise.model.Submission;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface SubmissionRepository extends MongoRepository<Submission, String> {
     List<Submission> findByUserIdOrderBySubmittedAtDesc(String userId);
     List<Submission> findByUserIdAndExerciseId(String userId, String exerciseId);
+
+    // ✅ keyset : première page (tri submittedAt desc, _id desc porté par le Pageable)
+    List<Submission> findByUserId(String userId, Pageable pageable);
+
+    // ✅ keyset : pages suivantes, strictement après (submittedAt, _id) du curseur
+    @Query("{ 'userId': ?0, '$or': [ { 'submittedAt': { '$lt': ?1 } }, { 'submittedAt': ?1, '_id': { '$lt': ?2 } } ] }")
+    List<Submission> findByUserIdAfter(String userId, LocalDateTime submittedAt, ObjectId id, Pageable pageable);
 }
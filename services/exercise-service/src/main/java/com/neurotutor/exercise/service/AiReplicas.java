@@ -0,0 +1,56 @@
+package com.neurotutor.exercise.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * URLs des instances de l'ai-service : via Eureka si ai.service.discovery-id est renseigné
+ * (et qu'il y a des instances), sinon la liste statique ai.service.replicas, sinon ai.service.base-url.
+ */
+@Component
+public class AiReplicas {
+
+    private final String discoveryId;
+    private final List<String> staticUrls;
+    private final ObjectProvider<DiscoveryClient> discoveryClient;
+
+    public AiReplicas(
+            @Value("${ai.service.base-url:http://127.0.0.1:8082}") String baseUrl,
+            @Value("${ai.service.replicas:}") String replicas,
+            @Value("${ai.service.discovery-id:}") String discoveryId,
+            ObjectProvider<DiscoveryClient> discoveryClient
+    ) {
+        List<String> urls = Arrays.stream(replicas.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(AiReplicas::trimSlash)
+                .toList();
+        this.staticUrls = urls.isEmpty() ? List.of(trimSlash(baseUrl)) : urls;
+        this.discoveryId = discoveryId.trim();
+        this.discoveryClient = discoveryClient;
+    }
+
+    public List<String> urls() {
+        if (!discoveryId.isEmpty()) {
+            DiscoveryClient client = discoveryClient.getIfAvailable();
+            if (client != null) {
+                List<String> discovered = client.getInstances(discoveryId).stream()
+                        .map(ServiceInstance::getUri)
+                        .map(uri -> trimSlash(uri.toString()))
+                        .toList();
+                if (!discovered.isEmpty()) return discovered;
+            }
+        }
+        return staticUrls;
+    }
+
+    private static String trimSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
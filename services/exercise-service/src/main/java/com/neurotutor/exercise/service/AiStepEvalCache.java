@@ -0,0 +1,220 @@
+package com.neurotutor.exercise.service;
+
+import com.neurotutor.exercise.dto.ia.AiStepEvalRequest;
+import com.neurotutor.exercise.dto.ia.AiStepEvalResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache des évaluations d'étapes par l'AI : une même erreur dans une classe = un seul appel au modèle.
+ * Clé = (exerciseId, réponse attendue, étapes, réponse finale), normalisées comme AnswerMatcher
+ * (l'élève n'en fait pas partie : le feedback ne dépend que du contenu).
+ * Le texte brut des étapes n'est pas conservé : deux élèves ayant la même clé n'ont pas forcément
+ * écrit la même chose (espaces, casse), chacun reçoit le feedback avec ses propres étapes.
+ * Borné en nombre d'entrées et en poids (taille estimée des chaînes), LRU, expiration après écriture.
+ */
+@Component
+public class AiStepEvalCache {
+
+    // surcoût approximatif d'un objet / d'une chaîne en mémoire
+    private static final int ENTRY_OVERHEAD = 128;
+    private static final int STRING_OVERHEAD = 40;
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final long ttlNanos;
+
+    // ordre d'accès : le premier élément est le moins récemment utilisé
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long weight;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public AiStepEvalCache(
+            @Value("${ai.step-eval.cache.max-entries:10000}") int maxEntries,
+            @Value("${ai.step-eval.cache.max-weight-bytes:33554432}") long maxWeight,
+            @Value("${ai.step-eval.cache.ttl:30m}") Duration ttl,
+            MeterRegistry meterRegistry
+    ) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttl.toNanos();
+
+        FunctionCounter.builder("ai.evaluation.cache.hits", hits, AtomicLong::get)
+                .description("Évaluations d'étapes servies depuis le cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("ai.evaluation.cache.misses", misses, AtomicLong::get)
+                .description("Évaluations d'étapes absentes du cache (appel AI)")
+                .register(meterRegistry);
+        FunctionCounter.builder("ai.evaluation.cache.evictions", evictions, AtomicLong::get)
+                .description("Entrées retirées (taille, poids ou expiration)")
+                .register(meterRegistry);
+        Gauge.builder("ai.evaluation.cache.size", this, AiStepEvalCache::size)
+                .register(meterRegistry);
+        Gauge.builder("ai.evaluation.cache.weight", this, AiStepEvalCache::weight)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("ai.evaluation.cache.hit_ratio", this, AiStepEvalCache::hitRatio)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Réponse en cache, sinon loader (hors verrou). Une réponse null (AI en erreur) n'est pas mise en cache.
+     * Toujours une copie dont les étapes sont celles de req (le loader peut renvoyer la réponse
+     * obtenue pour un autre élève, via SingleFlight).
+     */
+    public AiStepEvalResponse get(AiStepEvalRequest req, Function<AiStepEvalRequest, AiStepEvalResponse> loader) {
+        Key key = Key.of(req);
+
+        AiStepEvalResponse cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return forRequest(cached, req);
+        }
+        misses.incrementAndGet();
+
+        AiStepEvalResponse fresh = loader.apply(req);
+        if (fresh == null) return null;
+        AiStepEvalResponse shared = withoutStudentText(fresh);
+        store(key, shared);
+        return forRequest(shared, req);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    public double hitRatio() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    private synchronized AiStepEvalResponse lookup(Key key) {
+        Entry e = entries.get(key);
+        if (e == null) return null;
+        if (System.nanoTime() - e.writtenAt > ttlNanos) {
+            entries.remove(key);
+            weight -= e.weight;
+            evictions.incrementAndGet();
+            return null;
+        }
+        return e.response;
+    }
+
+    private synchronized void store(Key key, AiStepEvalResponse response) {
+        long w = key.weight() + weigh(response);
+        // une réponse plus grosse que tout le cache n'a rien à y faire
+        if (w > maxWeight) return;
+
+        Entry previous = entries.put(key, new Entry(response, w, System.nanoTime()));
+        if (previous != null) weight -= previous.weight;
+        weight += w;
+
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext() && (entries.size() > maxEntries || weight > maxWeight)) {
+            Entry eldest = it.next().getValue();
+            it.remove();
+            weight -= eldest.weight;
+            evictions.incrementAndGet();
+        }
+        // au passage, on purge les plus anciennes entrées expirées
+        it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            if (now - eldest.writtenAt <= ttlNanos) break;
+            it.remove();
+            weight -= eldest.weight;
+            evictions.incrementAndGet();
+        }
+    }
+
+    // ce qui ne dépend que de la clé : index, verdict, indice et correction de chaque étape
+    private static AiStepEvalResponse withoutStudentText(AiStepEvalResponse r) {
+        return copy(r, sf -> null);
+    }
+
+    private static AiStepEvalResponse forRequest(AiStepEvalResponse shared, AiStepEvalRequest req) {
+        List<String> steps = req.getSteps() == null ? List.of() : req.getSteps();
+        return copy(shared, sf -> sf.getIndex() >= 0 && sf.getIndex() < steps.size() ? steps.get(sf.getIndex()) : null);
+    }
+
+    private static AiStepEvalResponse copy(AiStepEvalResponse r, Function<AiStepEvalResponse.StepFeedback, String> stepText) {
+        List<AiStepEvalResponse.StepFeedback> feedback = null;
+        if (r.getStepsFeedback() != null) {
+            feedback = new ArrayList<>(r.getStepsFeedback().size());
+            for (AiStepEvalResponse.StepFeedback sf : r.getStepsFeedback()) {
+                feedback.add(new AiStepEvalResponse.StepFeedback(
+                        sf.getIndex(), stepText.apply(sf), sf.isCorrect(), sf.getHint(), sf.getCorrectedStep()));
+            }
+        }
+        List<String> solution = r.getGeneratedSolutionSteps() == null ? null : new ArrayList<>(r.getGeneratedSolutionSteps());
+        return new AiStepEvalResponse(r.getGlobalScore(), feedback, solution, r.getCorrectAnswer());
+    }
+
+    private static long weigh(AiStepEvalResponse r) {
+        long w = ENTRY_OVERHEAD + weigh(r.getCorrectAnswer()) + weigh(r.getGeneratedSolutionSteps());
+        if (r.getStepsFeedback() != null) {
+            for (AiStepEvalResponse.StepFeedback sf : r.getStepsFeedback()) {
+                w += ENTRY_OVERHEAD + weigh(sf.getStep()) + weigh(sf.getHint()) + weigh(sf.getCorrectedStep());
+            }
+        }
+        return w;
+    }
+
+    private static long weigh(List<String> strings) {
+        if (strings == null) return 0;
+        long w = STRING_OVERHEAD;
+        for (String s : strings) w += weigh(s);
+        return w;
+    }
+
+    private static long weigh(String s) {
+        return s == null ? 0 : STRING_OVERHEAD + 2L * s.length();
+    }
+
+    private record Entry(AiStepEvalResponse response, long weight, long writtenAt) {
+    }
+
+    record Key(String exerciseId, String expectedAnswer, List<String> steps, String finalAnswer) {
+
+        static Key of(AiStepEvalRequest req) {
+            List<String> steps = req.getSteps() == null
+                    ? List.of()
+                    : req.getSteps().stream().map(AnswerMatcher::canonical).toList();
+            return new Key(
+                    req.getExerciseId(),
+                    AnswerMatcher.canonical(req.getExpectedAnswer()),
+                    steps,
+                    AnswerMatcher.canonical(req.getFinalAnswer()));
+        }
+
+        long weight() {
+            return ENTRY_OVERHEAD + weigh(exerciseId) + weigh(expectedAnswer) + weigh(steps) + weigh(finalAnswer);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.neurotutor.exercise.service;
+
+import com.neurotutor.exercise.math.AnswerEquivalence;
+import com.neurotutor.exercise.model.Exercise;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Correction locale des réponses équivalentes ("5=x", "x=10/2", "x=5.0", "(x+3)(x-3)")
+ * avant tout appel à l'AI. La solution de chaque exercice n'est analysée qu'une fois :
+ * forme compilée mémorisée par exercice (LRU borné), recalculée si la solution change,
+ * oubliée à la suppression de l'exercice.
+ */
+@Service
+public class AnswerEquivalenceService {
+
+    private final int maxEntries;
+
+    // ordre d'accès : le premier élément est le moins récemment utilisé
+    private final LinkedHashMap<String, Compiled> byExercise = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Compiled> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private final AtomicLong compilations = new AtomicLong();
+
+    public AnswerEquivalenceService(@Value("${exercise.answer-equivalence.cache.max-entries:5000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public boolean isEquivalent(Exercise exercise, String answer) {
+        if (exercise == null || exercise.getSolution() == null || answer == null || answer.isBlank()) return false;
+
+        AnswerEquivalence expected = compiled(exercise);
+        return expected != null && expected.matches(answer);
+    }
+
+    /**
+     * À appeler quand l'exercice est supprimé.
+     */
+    public void evict(String exerciseId) {
+        if (exerciseId == null) return;
+        synchronized (byExercise) {
+            byExercise.remove(exerciseId);
+        }
+    }
+
+    int size() {
+        synchronized (byExercise) {
+            return byExercise.size();
+        }
+    }
+
+    long compilations() {
+        return compilations.get();
+    }
+
+    private AnswerEquivalence compiled(Exercise exercise) {
+        String solution = exercise.getSolution();
+        if (exercise.getId() == null) return compile(solution).equivalence;
+
+        Compiled c;
+        synchronized (byExercise) {
+            c = byExercise.get(exercise.getId());
+        }
+        if (c == null || !solution.equals(c.solution)) {
+            // compilation hors verrou (deux soumissions concurrentes peuvent compiler deux fois)
+            c = compile(solution);
+            synchronized (byExercise) {
+                byExercise.put(exercise.getId(), c);
+            }
+        }
+        return c.equivalence;
+    }
+
+    private Compiled compile(String solution) {
+        compilations.incrementAndGet();
+        try {
+            return new Compiled(solution, AnswerEquivalence.compile(solution));
+        } catch (RuntimeException e) {
+            // solution non supportée (texte libre, QCM, "x=2^100"...) : mémorisée aussi,
+            // pour ne pas la réanalyser à chaque soumission
+            return new Compiled(solution, null);
+        }
+    }
+
+    private record Compiled(String solution, AnswerEquivalence equivalence) {
+    }
+}
@@ -0,0 +1,46 @@
+package com.neurotutor.exercise.service;
+
+import java.util.Locale;
+
+/**
+ * Comparaison "exacte" d'une réponse à la solution : espaces ignorés, casse ignorée.
+ * La forme canonique de la solution est calculée une fois à l'écriture de l'exercice ;
+ * la réponse de l'élève est comparée en une passe, sans String intermédiaire.
+ */
+public final class AnswerMatcher {
+
+    private AnswerMatcher() {
+    }
+
+    /**
+     * Forme stockée dans Exercise.normalizedSolution.
+     */
+    public static String canonical(String s) {
+        return s == null ? "" : s.trim().replace(" ", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Équivaut à canonical(given).equals(canonical), sans allocation pour une réponse ASCII.
+     * Hors ASCII, la casse dépend du contexte (sigma final, İ qui devient deux caractères) :
+     * on repasse alors par canonical() pour plier exactement comme la solution stockée.
+     */
+    public static boolean matches(CharSequence given, String canonical) {
+        if (given == null) return canonical.isEmpty();
+
+        // bornes de trim()
+        int start = 0;
+        int end = given.length();
+        while (start < end && given.charAt(start) <= ' ') start++;
+        while (end > start && given.charAt(end - 1) <= ' ') end--;
+
+        int j = 0;
+        for (int i = start; i < end; i++) {
+            char c = given.charAt(i);
+            if (c == ' ') continue;
+            if (c >= 0x80) return canonical(given.toString()).equals(canonical);
+            if (j >= canonical.length() || Character.toLowerCase(c) != canonical.charAt(j)) return false;
+            j++;
+        }
+        return j == canonical.length();
+    }
+}
@@ -0,0 +1,56 @@
+package com.neurotutor.exercise.service;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Limite le nombre d'appels simultanés vers une dépendance : au-delà, attente courte puis refus,
+ * pour qu'une dépendance lente n'occupe pas tous les threads HTTP du service.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private final long maxWaitNanos;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    public Bulkhead(String name, int maxConcurrent, Duration maxWait) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent);
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    /**
+     * @throws DependencyUnavailableException si aucune place ne se libère à temps
+     */
+    public <T> T execute(Supplier<T> call) {
+        try {
+            if (!permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                rejected.incrementAndGet();
+                throw new DependencyUnavailableException(name + " bulkhead full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DependencyUnavailableException(name + " bulkhead wait interrupted");
+        }
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int active() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public long rejected() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,149 @@
+package com.neurotutor.exercise.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Disjoncteur à fenêtre glissante (en nombre d'appels).
+ * CLOSED : les appels passent ; au-delà de failureRate % d'échecs sur la fenêtre (après minCalls appels), OPEN.
+ * OPEN : refus immédiat pendant openDuration, puis HALF_OPEN.
+ * HALF_OPEN : quelques appels sondes ; tous réussis => CLOSED, un échec => OPEN à nouveau.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int minCalls;
+    private final double failureRate;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final Predicate<RuntimeException> isFailure;
+
+    // fenêtre circulaire : true = échec
+    private final boolean[] window;
+    private int windowPos;
+    private int windowCount;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param isFailure exceptions qui comptent comme un échec de la dépendance (les autres comptent comme un succès)
+     */
+    public CircuitBreaker(String name, int windowSize, int minCalls, double failureRatePercent,
+                          Duration openDuration, int halfOpenProbes, Predicate<RuntimeException> isFailure) {
+        this.name = name;
+        this.window = new boolean[windowSize];
+        this.minCalls = Math.min(minCalls, windowSize);
+        this.failureRate = failureRatePercent / 100.0;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenProbes = halfOpenProbes;
+        this.isFailure = isFailure;
+    }
+
+    /**
+     * @throws DependencyUnavailableException si le circuit refuse l'appel
+     */
+    public <T> T execute(Supplier<T> call) {
+        if (!tryAcquire()) throw new DependencyUnavailableException(name + " circuit open");
+        try {
+            T result = call.get();
+            onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            if (isFailure.test(e)) onFailure();
+            else onSuccess();
+            throw e;
+        }
+    }
+
+    /**
+     * Vrai tant que le circuit est ouvert et que la période de repos n'est pas écoulée
+     * (ne consomme pas de sonde : sert à court-circuiter un travail préparatoire).
+     */
+    public synchronized boolean isOpen() {
+        return state == State.OPEN && System.nanoTime() - openedAt < openNanos;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public long rejected() {
+        return rejected.get();
+    }
+
+    private synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probesStarted = 0;
+            probesSucceeded = 0;
+            System.out.println("[Circuit] " + name + " half-open: probing");
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesStarted >= halfOpenProbes) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            probesStarted++;
+        }
+        return true;
+    }
+
+    private synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++probesSucceeded >= halfOpenProbes) {
+                state = State.CLOSED;
+                resetWindow();
+                System.out.println("[Circuit] " + name + " closed");
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    private synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (windowCount >= minCalls && windowFailures >= failureRate * windowCount) open();
+        }
+    }
+
+    private void record(boolean failed) {
+        if (windowCount == window.length) {
+            if (window[windowPos]) windowFailures--;
+        } else {
+            windowCount++;
+        }
+        window[windowPos] = failed;
+        if (failed) windowFailures++;
+        windowPos = (windowPos + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        resetWindow();
+        System.out.println("[Circuit] " + name + " open for " + Duration.ofNanos(openNanos));
+    }
+
+    private void resetWindow() {
+        windowPos = 0;
+        windowCount = 0;
+        windowFailures = 0;
+    }
+}
@@ -0,0 +1,12 @@
+package com.neurotutor.exercise.service;
+
+/**
+ * Appel refusé localement sans toucher la dépendance (circuit ouvert, bulkhead plein) :
+ * l'appelant doit basculer tout de suite sur son repli.
+ */
+public class DependencyUnavailableException extends RuntimeException {
+
+    public DependencyUnavailableException(String message) {
+        super(message);
+    }
+}
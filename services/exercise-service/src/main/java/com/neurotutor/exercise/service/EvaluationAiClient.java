@@ -2,17 +2,22 @@ package com.neurotutor.exercise.service;
 
 import com.neurotutor.exercise.dto.ia.AiStepEvalRequest;
 import com.neurotutor.exercise.dto.ia.AiStepEvalResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 @Service
+@RequiredArgsConstructor
 public class EvaluationAiClient {
 
-    private final String AI_BASE_URL = "http://localhost:8082";
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
+
+    @Value("${ai.service.base-url:http://127.0.0.1:8082}")
+    private String aiBaseUrl;
 
     public AiStepEvalResponse evaluateSteps(AiStepEvalRequest req) {
-        String url = AI_BASE_URL + "/evaluation/evaluate-steps";
+        String url = aiBaseUrl + "/evaluation/evaluate-steps";
         return restTemplate.postForObject(url, req, AiStepEvalResponse.class);
     }
 }
@@ -0,0 +1,303 @@
+package com.neurotutor.exercise.service;
+
+import com.neurotutor.exercise.model.Exercise;
+import com.neurotutor.exercise.model.UserLevel;
+import com.neurotutor.exercise.repository.ExerciseRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Catalogue d'exercices en mémoire (read-through, versionné).
+ * Les lectures ne touchent Mongo qu'au premier chargement, ou pour un id absent du snapshot
+ * (écrit par une autre instance) ; les écritures d'ExerciseService mettent à jour le snapshot
+ * entrée par entrée.
+ * Métriques : une lecture publique = un hit (servie par le snapshot) ou un miss (passée par Mongo).
+ * Verrou explicite plutôt que synchronized : le chargement fait une lecture Mongo,
+ * qui épinglerait un thread virtuel sur son porteur (server.threads.mode=virtual).
+ */
+@Component
+public class ExerciseCatalog {
+
+    private final ExerciseRepository exerciseRepository;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private final ExerciseSearchIndex searchIndex = new ExerciseSearchIndex();
+
+    // écritures et chargement ; les lectures d'un snapshot déjà chargé ne le prennent pas
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // null = pas encore chargé (ou invalidé)
+    private volatile Snapshot snapshot;
+    private long version;
+
+    // distingue les versions d'une instance à l'autre (la version repart de 0 au redémarrage)
+    private final String generation = Long.toString(System.currentTimeMillis(), 36);
+
+    public ExerciseCatalog(ExerciseRepository exerciseRepository, MeterRegistry meterRegistry) {
+        this.exerciseRepository = exerciseRepository;
+
+        FunctionCounter.builder("exercise.catalog.hits", hits, AtomicLong::get)
+                .description("Lectures servies depuis le catalogue en mémoire")
+                .register(meterRegistry);
+        FunctionCounter.builder("exercise.catalog.misses", misses, AtomicLong::get)
+                .description("Lectures ayant nécessité un chargement depuis Mongo")
+                .register(meterRegistry);
+        Gauge.builder("exercise.catalog.size", this, ExerciseCatalog::size)
+                .description("Nombre d'exercices en mémoire")
+                .register(meterRegistry);
+    }
+
+    public List<Exercise> findAll() {
+        return read().all;
+    }
+
+    public Optional<Exercise> findById(String id) {
+        if (id == null) return Optional.empty();
+        Snapshot s = snapshot;
+        boolean warm = s != null;
+        if (!warm) s = load();
+
+        Entry e = s.byId.get(id);
+        if (e != null) {
+            (warm ? hits : misses).incrementAndGet();
+            return Optional.of(e.exercise);
+        }
+
+        // absent du snapshot : peut-être créé par une autre instance (ou un import pas encore invalidé)
+        misses.incrementAndGet();
+        long seen = s.version;
+        Optional<Exercise> stored = exerciseRepository.findById(id);
+        stored.ifPresent(ex -> addIfUnchanged(ex, seen));
+        return stored;
+    }
+
+    /**
+     * Exercices accessibles à un niveau donné (liste immuable pré-calculée au chargement).
+     */
+    public List<Exercise> findAccessibleTo(UserLevel level) {
+        return read().byAccessLevel.get(level);
+    }
+
+    /**
+     * Pagination keyset sur l'id (ordre des ObjectId = ordre de création) :
+     * au plus {@code max} exercices d'id strictement supérieur à {@code afterId}.
+     */
+    public List<Exercise> findAfter(String afterId, UserLevel level, Predicate<Exercise> filter, int max) {
+        Snapshot s = read();
+        NavigableMap<String, Entry> range = afterId == null ? s.byId : s.byId.tailMap(afterId, false);
+
+        List<Exercise> page = new ArrayList<>(Math.min(max, range.size()));
+        for (Entry e : range.values()) {
+            if (page.size() >= max) break;
+            if (level != null && !level.canAccess(e.level)) continue;
+            if (filter != null && !filter.test(e.exercise)) continue;
+            page.add(e.exercise);
+        }
+        return page;
+    }
+
+    /**
+     * Recherche plein texte, résultats triés par pertinence (BM25).
+     */
+    public List<Exercise> search(String query, int limit) {
+        Snapshot s = read();
+        List<Exercise> results = new ArrayList<>();
+        for (String id : searchIndex.search(query, limit)) {
+            Entry e = s.byId.get(id);
+            if (e != null) results.add(e.exercise);
+        }
+        return results;
+    }
+
+    public ExerciseFacetIndex getFacetIndex() {
+        return read().facetIndex;
+    }
+
+    public long getVersion() {
+        return current().version;
+    }
+
+    /**
+     * ETag fort du catalogue : change à chaque écriture passée par ExerciseService.
+     */
+    public String getETag() {
+        return "\"" + generation + "-" + getVersion() + "\"";
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        Snapshot s = snapshot;
+        return s == null ? 0 : s.all.size();
+    }
+
+    // ===== Invalidation (appelée par ExerciseService après écriture Mongo) =====
+
+    public void put(Exercise exercise) {
+        putAll(List.of(exercise));
+    }
+
+    public void putAll(Collection<Exercise> exercises) {
+        lock.lock();
+        try {
+            version++;
+            Snapshot s = snapshot;
+            if (s == null) return;
+
+            NavigableMap<String, Entry> byId = new TreeMap<>(s.byId);
+            for (Exercise ex : exercises) {
+                if (ex != null && ex.getId() != null) {
+                    byId.put(ex.getId(), new Entry(ex));
+                    searchIndex.put(ex);
+                }
+            }
+            snapshot = new Snapshot(version, byId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.lock();
+        try {
+            version++;
+            Snapshot s = snapshot;
+            if (s == null || !s.byId.containsKey(id)) return;
+
+            NavigableMap<String, Entry> byId = new TreeMap<>(s.byId);
+            byId.remove(id);
+            searchIndex.remove(id);
+            snapshot = new Snapshot(version, byId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            version++;
+            snapshot = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // lecture publique : comptée
+    private Snapshot read() {
+        Snapshot s = snapshot;
+        if (s != null) {
+            hits.incrementAndGet();
+            return s;
+        }
+        misses.incrementAndGet();
+        return load();
+    }
+
+    // accès interne (version, ETag) : non compté
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        return s != null ? s : load();
+    }
+
+    private Snapshot load() {
+        lock.lock();
+        try {
+            // un autre thread a pu charger pendant qu'on attendait le verrou
+            Snapshot s = snapshot;
+            if (s != null) return s;
+
+            NavigableMap<String, Entry> byId = new TreeMap<>();
+            for (Exercise ex : exerciseRepository.findAll()) {
+                byId.put(ex.getId(), new Entry(ex));
+            }
+            s = new Snapshot(version, byId);
+            searchIndex.rebuild(s.all);
+            snapshot = s;
+            return s;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // exercice lu dans Mongo par findById : ajouté seulement si aucune écriture n'a eu lieu
+    // depuis (sinon un exercice supprimé entre-temps reviendrait dans le catalogue)
+    private void addIfUnchanged(Exercise ex, long seenVersion) {
+        lock.lock();
+        try {
+            Snapshot s = snapshot;
+            if (s == null || version != seenVersion || s.byId.containsKey(ex.getId())) return;
+
+            version++;
+            NavigableMap<String, Entry> byId = new TreeMap<>(s.byId);
+            byId.put(ex.getId(), new Entry(ex));
+            searchIndex.put(ex);
+            snapshot = new Snapshot(version, byId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // difficulté parsée une seule fois, quand l'exercice entre dans le catalogue
+    private static final class Entry {
+        private final Exercise exercise;
+        private final UserLevel level;
+
+        private Entry(Exercise exercise) {
+            this.exercise = exercise;
+            this.level = UserLevel.fromString(exercise.getDifficulty());
+        }
+    }
+
+    private static final class Snapshot {
+        private final long version;
+        private final NavigableMap<String, Entry> byId;
+        private final List<Exercise> all;
+        private final Map<UserLevel, List<Exercise>> byAccessLevel;
+        private final ExerciseFacetIndex facetIndex;
+
+        private Snapshot(long version, NavigableMap<String, Entry> byId) {
+            this.version = version;
+            this.byId = Collections.unmodifiableNavigableMap(byId);
+
+            List<Exercise> all = new ArrayList<>(byId.size());
+            Map<UserLevel, List<Exercise>> partitions = new EnumMap<>(UserLevel.class);
+            for (UserLevel level : UserLevel.values()) partitions.put(level, new ArrayList<>());
+
+            for (Entry e : byId.values()) {
+                all.add(e.exercise);
+                for (UserLevel level : UserLevel.values()) {
+                    if (level.canAccess(e.level)) partitions.get(level).add(e.exercise);
+                }
+            }
+
+            this.all = Collections.unmodifiableList(all);
+            partitions.replaceAll((level, list) -> Collections.unmodifiableList(list));
+            this.byAccessLevel = partitions;
+            this.facetIndex = new ExerciseFacetIndex(this.all);
+        }
+    }
+}
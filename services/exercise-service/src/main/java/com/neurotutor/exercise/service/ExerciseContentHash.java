@@ -0,0 +1,40 @@
+package com.neurotutor.exercise.service;
+
+import com.neurotutor.exercise.model.Exercise;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Empreinte de contenu d'un exercice : deux exercices qui ne diffèrent que par la casse,
+ * les espaces ou la forme Unicode des accents ont la même empreinte.
+ */
+public final class ExerciseContentHash {
+
+    private ExerciseContentHash() {
+    }
+
+    public static String of(Exercise ex) {
+        String canonical = canonical(ex.getTitle())
+                + '\u0000' + canonical(ex.getProblemStatement())
+                + '\u0000' + canonical(ex.getSolution());
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    private static String canonical(String s) {
+        if (s == null) return "";
+        return Normalizer.normalize(s, Normalizer.Form.NFC)
+                .trim()
+                .replaceAll("\\s+", " ")
+                .toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,119 @@
+package com.neurotutor.exercise.service;
+
+import com.neurotutor.exercise.model.Exercise;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Index inversé facette -> valeur -> bitset des positions dans le snapshot du catalogue.
+ * Immuable : reconstruit avec chaque snapshot d'ExerciseCatalog.
+ */
+public class ExerciseFacetIndex {
+
+    public static final String TOPIC = "topic";
+    public static final String TAG = "tag";
+    public static final String DIFFICULTY = "difficulty";
+    public static final String RESPONSE_TYPE = "responseType";
+
+    public static final List<String> FACETS = List.of(TOPIC, TAG, DIFFICULTY, RESPONSE_TYPE);
+
+    private final List<Exercise> docs;
+    private final Map<String, Map<String, BitSet>> postings;
+
+    ExerciseFacetIndex(List<Exercise> docs) {
+        this.docs = docs;
+        this.postings = new HashMap<>();
+        for (String facet : FACETS) postings.put(facet, new TreeMap<>());
+
+        for (int i = 0; i < docs.size(); i++) {
+            Exercise ex = docs.get(i);
+            addAll(TOPIC, ex.getTopics(), i);
+            addAll(TAG, ex.getTags(), i);
+            add(DIFFICULTY, ex.getDifficulty(), i);
+            addAll(RESPONSE_TYPE, ex.getResponseTypes(), i);
+        }
+    }
+
+    public static boolean isFacet(String facet) {
+        return FACETS.contains(facet);
+    }
+
+    /**
+     * (AND de {@code all}) ∩ (OR de {@code any}, si non vide) \ (OR de {@code not}).
+     * Chaque terme est une paire (facette, valeur).
+     */
+    public BitSet match(List<Map.Entry<String, String>> all,
+                        List<Map.Entry<String, String>> any,
+                        List<Map.Entry<String, String>> not) {
+        BitSet result = new BitSet(docs.size());
+        result.set(0, docs.size());
+
+        for (Map.Entry<String, String> term : all) {
+            result.and(postings(term));
+        }
+
+        if (!any.isEmpty()) {
+            BitSet union = new BitSet(docs.size());
+            for (Map.Entry<String, String> term : any) union.or(postings(term));
+            result.and(union);
+        }
+
+        for (Map.Entry<String, String> term : not) {
+            result.andNot(postings(term));
+        }
+        return result;
+    }
+
+    public List<Exercise> documents(BitSet bits) {
+        List<Exercise> out = new ArrayList<>(bits.cardinality());
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            out.add(docs.get(i));
+        }
+        return out;
+    }
+
+    /**
+     * Comptes par facette/valeur restreints au résultat (valeurs à 0 omises).
+     */
+    public Map<String, Map<String, Integer>> facetCounts(BitSet bits) {
+        Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+        BitSet tmp = new BitSet(docs.size());
+
+        for (String facet : FACETS) {
+            Map<String, Integer> values = new LinkedHashMap<>();
+            for (Map.Entry<String, BitSet> e : postings.get(facet).entrySet()) {
+                tmp.clear();
+                tmp.or(e.getValue());
+                tmp.and(bits);
+                int c = tmp.cardinality();
+                if (c > 0) values.put(e.getKey(), c);
+            }
+            counts.put(facet, values);
+        }
+        return counts;
+    }
+
+    private BitSet postings(Map.Entry<String, String> term) {
+        Map<String, BitSet> values = postings.get(term.getKey());
+        if (values == null) return new BitSet();
+        BitSet bits = values.get(term.getValue());
+        return bits == null ? new BitSet() : bits;
+    }
+
+    private void addAll(String facet, Collection<String> values, int pos) {
+        for (String v : values == null ? Collections.<String>emptyList() : values) add(facet, v, pos);
+    }
+
+    private void add(String facet, String value, int pos) {
+        if (value == null || value.isBlank()) return;
+        postings.get(facet).computeIfAbsent(value, k -> new BitSet()).set(pos);
+    }
+}
@@ -0,0 +1,141 @@
+package com.neurotutor.exercise.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.neurotutor.exercise.dto.ImportReportDto;
+import com.neurotutor.exercise.model.Exercise;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Import en flux d'exercices NDJSON (un objet JSON par ligne).
+ * Accepte aussi le format de exercises_seed.json : tableau avec un objet par ligne.
+ * Mémoire bornée par la taille de lot, quel que soit le nombre de lignes.
+ * Upsert par contentHash : réimporter le même fichier ne crée pas de doublons.
+ */
+@Service
+public class ExerciseImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final ObjectMapper objectMapper;
+    private final ExerciseService exerciseService;
+    private final ExerciseCatalog exerciseCatalog;
+
+    @Value("${exercise.import.batch-size:500}")
+    private int batchSize;
+
+    public ExerciseImportService(ObjectMapper objectMapper,
+                                 ExerciseService exerciseService,
+                                 ExerciseCatalog exerciseCatalog) {
+        this.objectMapper = objectMapper;
+        this.exerciseService = exerciseService;
+        this.exerciseCatalog = exerciseCatalog;
+    }
+
+    public ImportReportDto importNdjson(InputStream in) throws IOException {
+        ImportReportDto report = new ImportReportDto();
+
+        // contentHash -> exercice (ordre d'insertion = index de l'opération bulk)
+        Map<String, Exercise> batch = new LinkedHashMap<>();
+        Map<String, Long> batchLines = new LinkedHashMap<>();
+        boolean written = false;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String raw;
+            long lineNo = 0;
+            while ((raw = reader.readLine()) != null) {
+                lineNo++;
+                String line = stripLine(raw, lineNo);
+                if (line.isEmpty()) continue;
+
+                report.setReceived(report.getReceived() + 1);
+                Exercise ex;
+                try {
+                    ex = objectMapper.readValue(line, Exercise.class);
+                    if (ex == null) throw new IllegalArgumentException("Empty record");
+                    if (ex.getTitle() == null || ex.getTitle().trim().isEmpty())
+                        throw new IllegalArgumentException("Title is required");
+                } catch (JsonProcessingException e) {
+                    fail(report, lineNo, "Invalid JSON: " + e.getOriginalMessage());
+                    continue;
+                } catch (IllegalArgumentException e) {
+                    fail(report, lineNo, e.getMessage());
+                    continue;
+                }
+
+                exerciseService.applyDefaults(ex);
+
+                // même contenu plus bas dans le fichier : la dernière version gagne
+                if (batch.put(ex.getContentHash(), ex) != null) {
+                    report.setDuplicates(report.getDuplicates() + 1);
+                }
+                batchLines.put(ex.getContentHash(), lineNo);
+                if (batch.size() >= batchSize) written |= flush(batch, batchLines, report);
+            }
+
+            written |= flush(batch, batchLines, report);
+        } finally {
+            // un seul rechargement du catalogue plutôt qu'une mise à jour par lot, y compris
+            // quand l'import s'arrête en cours de route (client parti, erreur Mongo) :
+            // les lots déjà envoyés doivent apparaître dans le catalogue et changer l'ETag
+            if (written) exerciseCatalog.invalidateAll();
+        }
+        return report;
+    }
+
+    // un aller-retour Mongo par lot : upsert filtré sur contentHash ; true si un lot a été envoyé
+    private boolean flush(Map<String, Exercise> batch, Map<String, Long> batchLines, ImportReportDto report) {
+        if (batch.isEmpty()) return false;
+
+        try {
+            record(report, exerciseService.upsertByContentHash(batch.values()));
+        } catch (BulkOperationException e) {
+            // unordered : les autres opérations du lot sont quand même appliquées
+            record(report, e.getResult());
+            List<Long> lines = new ArrayList<>(batchLines.values());
+            for (BulkWriteError err : e.getErrors()) {
+                fail(report, lines.get(err.getIndex()), err.getMessage());
+            }
+        } finally {
+            batch.clear();
+            batchLines.clear();
+        }
+        return true;
+    }
+
+    private void record(ImportReportDto report, BulkWriteResult result) {
+        report.setInserted(report.getInserted() + result.getUpserts().size());
+        report.setUpdated(report.getUpdated() + result.getMatchedCount());
+    }
+
+    // tolère le format "tableau, un objet par ligne" (BOM, '[', ']', virgules de fin)
+    private String stripLine(String raw, long lineNo) {
+        String line = raw.trim();
+        if (lineNo == 1 && line.startsWith("\uFEFF")) line = line.substring(1).trim();
+        if (line.startsWith("[")) line = line.substring(1).trim();
+        if (line.endsWith("]")) line = line.substring(0, line.length() - 1).trim();
+        if (line.endsWith(",")) line = line.substring(0, line.length() - 1).trim();
+        return line;
+    }
+
+    private void fail(ImportReportDto report, long line, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(new ImportReportDto.LineError(line, message));
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.neurotutor.exercise.service;
+
+import com.neurotutor.exercise.model.Exercise;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Index plein texte en mémoire (title, description, problemStatement, hints).
+ * Analyse française : minuscules, suppression des accents et ligatures, mots vides, racinisation légère.
+ * Classement BM25 ; mis à jour exercice par exercice par ExerciseCatalog.
+ */
+public class ExerciseSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // le titre compte double dans la fréquence des termes
+    private static final int TITLE_WEIGHT = 2;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "le", "la", "les", "de", "des", "du", "un", "une", "et", "en", "au", "aux",
+            "pour", "par", "sur", "dans", "est", "que", "qui", "ou", "ce", "ces", "se",
+            "sa", "son", "ses", "il", "elle", "on", "nous", "vous", "ils", "elles",
+            "avec", "sans", "ne", "pas", "plus", "qu", "sont", "cette", "leur", "leurs"
+    );
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // terme -> (id exercice -> tf)
+    private final Map<String, Map<String, Integer>> postings = new HashMap<>();
+    // id exercice -> termes indexés (pour retirer proprement à la mise à jour)
+    private final Map<String, Map<String, Integer>> docTerms = new HashMap<>();
+    private final Map<String, Integer> docLengths = new HashMap<>();
+    private long totalLength;
+
+    public void rebuild(Collection<Exercise> exercises) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docTerms.clear();
+            docLengths.clear();
+            totalLength = 0;
+            for (Exercise ex : exercises) index(ex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(Exercise exercise) {
+        if (exercise == null || exercise.getId() == null) return;
+        lock.writeLock().lock();
+        try {
+            unindex(exercise.getId());
+            index(exercise);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids d'exercices triés par score BM25 décroissant.
+     */
+    public List<String> search(String query, int limit) {
+        List<String> terms = analyze(query);
+        if (terms.isEmpty()) return List.of();
+
+        lock.readLock().lock();
+        try {
+            int n = docTerms.size();
+            if (n == 0) return List.of();
+            double avgLength = (double) totalLength / n;
+
+            Map<String, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                Map<String, Integer> docs = postings.get(term);
+                if (docs == null) continue;
+
+                double idf = Math.log(1 + (n - docs.size() + 0.5) / (docs.size() + 0.5));
+                for (Map.Entry<String, Integer> d : docs.entrySet()) {
+                    int tf = d.getValue();
+                    int length = docLengths.get(d.getKey());
+                    double norm = tf + K1 * (1 - B + B * length / avgLength);
+                    scores.merge(d.getKey(), idf * tf * (K1 + 1) / norm, Double::sum);
+                }
+            }
+
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void index(Exercise ex) {
+        if (ex.getId() == null) return;
+
+        Map<String, Integer> tf = new LinkedHashMap<>();
+        for (String t : analyze(ex.getTitle())) tf.merge(t, TITLE_WEIGHT, Integer::sum);
+        for (String t : analyze(ex.getDescription())) tf.merge(t, 1, Integer::sum);
+        for (String t : analyze(ex.getProblemStatement())) tf.merge(t, 1, Integer::sum);
+        if (ex.getHints() != null) {
+            for (String hint : ex.getHints()) {
+                for (String t : analyze(hint)) tf.merge(t, 1, Integer::sum);
+            }
+        }
+
+        int length = 0;
+        for (Map.Entry<String, Integer> e : tf.entrySet()) {
+            postings.computeIfAbsent(e.getKey(), k -> new HashMap<>()).put(ex.getId(), e.getValue());
+            length += e.getValue();
+        }
+        docTerms.put(ex.getId(), tf);
+        docLengths.put(ex.getId(), length);
+        totalLength += length;
+    }
+
+    private void unindex(String id) {
+        Map<String, Integer> tf = docTerms.remove(id);
+        if (tf == null) return;
+
+        for (String term : tf.keySet()) {
+            Map<String, Integer> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(id);
+                if (docs.isEmpty()) postings.remove(term);
+            }
+        }
+        totalLength -= docLengths.remove(id);
+    }
+
+    // ===== Analyse française =====
+
+    static List<String> analyze(String text) {
+        if (text == null || text.isBlank()) return List.of();
+
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        // Locale.ROOT : indépendant de la locale du serveur (le "I" turc ne devient pas "ı")
+        folded = folded.toLowerCase(Locale.ROOT);
+        // ligatures non décomposées par NFD : "cœur" == "coeur", "ex æquo" == "ex aequo"
+        folded = folded.replace("œ", "oe").replace("æ", "ae");
+
+        List<String> out = new ArrayList<>();
+        for (String token : folded.split("[^a-z0-9]+")) {
+            if (token.isEmpty() || STOP_WORDS.contains(token)) continue;
+            // les lettres isolées (l', d', x...) ne discriminent rien ; on garde les nombres
+            if (token.length() < 2 && !Character.isDigit(token.charAt(0))) continue;
+            out.add(stem(token));
+        }
+        return out;
+    }
+
+    /**
+     * Racinisation légère (pluriels, féminins, quelques suffixes fréquents).
+     * "Priorités" / "priorite" -> "priorit", "équations" / "equation" -> "equ".
+     */
+    static String stem(String w) {
+        if (Character.isDigit(w.charAt(0))) return w;
+
+        if (w.length() > 4 && w.endsWith("aux")) w = w.substring(0, w.length() - 3) + "al";
+        else if (w.length() > 3 && (w.endsWith("s") || w.endsWith("x"))) w = w.substring(0, w.length() - 1);
+
+        if (w.length() > 6 && w.endsWith("ement")) w = w.substring(0, w.length() - 5);
+        else if (w.length() > 6 && w.endsWith("ation")) w = w.substring(0, w.length() - 5);
+        else if (w.length() > 4 && w.endsWith("er")) w = w.substring(0, w.length() - 2);
+
+        if (w.length() > 3 && w.endsWith("e")) w = w.substring(0, w.length() - 1);
+        return w;
+    }
+}
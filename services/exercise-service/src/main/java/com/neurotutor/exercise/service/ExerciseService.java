@@ -1,102 +1,169 @@
 package com.neurotutor.exercise.service;
 
+import com.mongodb.bulk.BulkWriteResult;
+import com.neurotutor.exercise.dto.CursorPage;
+import com.neurotutor.exercise.dto.ExerciseSummaryDto;
+import com.neurotutor.exercise.dto.FacetSearchResponse;
 import com.neurotutor.exercise.model.Exercise;
 import com.neurotutor.exercise.model.UserLevel;
 import com.neurotutor.exercise.repository.ExerciseRepository;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 public class ExerciseService {
 
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
     private final ExerciseRepository exerciseRepository;
+    private final ExerciseCatalog exerciseCatalog;
+    private final AnswerEquivalenceService answerEquivalence;
+    private final MongoTemplate mongoTemplate;
 
     @Autowired
-    public ExerciseService(ExerciseRepository exerciseRepository) {
+    public ExerciseService(ExerciseRepository exerciseRepository, ExerciseCatalog exerciseCatalog,
+                           AnswerEquivalenceService answerEquivalence, MongoTemplate mongoTemplate) {
         this.exerciseRepository = exerciseRepository;
+        this.exerciseCatalog = exerciseCatalog;
+        this.answerEquivalence = answerEquivalence;
+        this.mongoTemplate = mongoTemplate;
     }
 
-    public List<Exercise> getAllExercises(String userLevel) {
-        List<Exercise> allExercises = exerciseRepository.findAll();
-
-        if (userLevel == null || userLevel.isBlank()) return allExercises;
-
-        UserLevel userLevelEnum = UserLevel.fromString(userLevel);
+    // ✅ LIST (catalogue en mémoire) : mêmes filtres exacts que les requêtes Mongo d'origine
+    public List<ExerciseSummaryDto> listExercises(String userLevel, String difficulty, String topic) {
+        return getAllExercises(userLevel).stream()
+                .filter(ex -> difficulty == null || difficulty.equals(ex.getDifficulty()))
+                .filter(ex -> topic == null || (ex.getTopics() != null && ex.getTopics().contains(topic)))
+                .map(ExerciseSummaryDto::from)
+                .collect(Collectors.toList());
+    }
 
-        return allExercises.stream()
-                .filter(exercise -> {
-                    try {
-                        UserLevel exerciseLevel = UserLevel.fromString(exercise.getDifficulty());
-                        return userLevelEnum.canAccess(exerciseLevel);
-                    } catch (Exception e) {
-                        return true;
-                    }
-                })
+    // ✅ LIST paginée : cursor = dernier id renvoyé (ordre des ObjectId)
+    public CursorPage<ExerciseSummaryDto> listExercisesPage(
+            String userLevel, String difficulty, String topic, String cursor, Integer limit
+    ) {
+        int size = clampPageSize(limit);
+        UserLevel level = (userLevel == null || userLevel.isBlank()) ? null : UserLevel.fromString(userLevel);
+
+        List<Exercise> rows = exerciseCatalog.findAfter(
+                cursor,
+                level,
+                ex -> (difficulty == null || difficulty.equals(ex.getDifficulty()))
+                        && (topic == null || (ex.getTopics() != null && ex.getTopics().contains(topic))),
+                size + 1
+        );
+
+        String nextCursor = rows.size() > size ? rows.get(size - 1).getId() : null;
+        List<ExerciseSummaryDto> page = rows.stream()
+                .limit(size)
+                .map(ExerciseSummaryDto::from)
                 .collect(Collectors.toList());
+        return new CursorPage<>(page, nextCursor);
     }
 
-    public Optional<Exercise> getExerciseById(String id) {
-        return exerciseRepository.findById(id);
+    // ✅ Recherche plein texte (titre, énoncé, description, indices)
+    public List<ExerciseSummaryDto> searchExercises(String query, Integer limit) {
+        if (query == null || query.isBlank()) throw new IllegalArgumentException("q is required");
+        return exerciseCatalog.search(query, clampPageSize(limit)).stream()
+                .map(ExerciseSummaryDto::from)
+                .collect(Collectors.toList());
     }
 
-    public Exercise getExerciseByIdOrThrow(String id) {
-        return exerciseRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Exercise not found: " + id));
+    // ✅ Recherche à facettes : termes "facette:valeur" (topic, tag, difficulty, responseType)
+    public FacetSearchResponse facetSearch(List<String> all, List<String> any, List<String> not) {
+        ExerciseFacetIndex index = exerciseCatalog.getFacetIndex();
+
+        BitSet bits = index.match(parseTerms(all), parseTerms(any), parseTerms(not));
+        List<ExerciseSummaryDto> results = index.documents(bits).stream()
+                .map(ExerciseSummaryDto::from)
+                .collect(Collectors.toList());
+
+        return FacetSearchResponse.builder()
+                .value(results)
+                .count(results.size())
+                .facets(index.facetCounts(bits))
+                .build();
     }
 
-    public Exercise createExercise(Exercise exercise) {
-        if (exercise == null) throw new IllegalArgumentException("Exercise body is required");
-        if (exercise.getTitle() == null || exercise.getTitle().trim().isEmpty())
-            throw new IllegalArgumentException("Title is required");
+    private List<Map.Entry<String, String>> parseTerms(List<String> terms) {
+        if (terms == null || terms.isEmpty()) return Collections.emptyList();
 
-        if (exercise.getDifficulty() == null || exercise.getDifficulty().trim().isEmpty())
-            exercise.setDifficulty("BEGINNER");
+        List<Map.Entry<String, String>> parsed = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            int sep = term == null ? -1 : term.indexOf(':');
+            if (sep <= 0 || sep == term.length() - 1)
+                throw new IllegalArgumentException("Invalid facet term (expected facet:value): " + term);
 
-        if (exercise.getTopics() == null) exercise.setTopics(new ArrayList<>());
-        if (exercise.getTags() == null) exercise.setTags(new ArrayList<>());
-        if (exercise.getHints() == null) exercise.setHints(new ArrayList<>());
-        if (exercise.getSteps() == null) exercise.setSteps(new ArrayList<>());
+            String facet = term.substring(0, sep);
+            if (!ExerciseFacetIndex.isFacet(facet))
+                throw new IllegalArgumentException("Unknown facet: " + facet + " (allowed: " + ExerciseFacetIndex.FACETS + ")");
 
-        if (exercise.getResponseTypes() == null || exercise.getResponseTypes().isEmpty()) {
-            exercise.setResponseTypes(List.of("TEXT"));
+            parsed.add(new AbstractMap.SimpleImmutableEntry<>(facet, term.substring(sep + 1)));
         }
+        return parsed;
+    }
 
-        if (exercise.getExplanationText() == null) exercise.setExplanationText("");
+    public static int clampPageSize(Integer limit) {
+        if (limit == null) return DEFAULT_PAGE_SIZE;
+        if (limit < 1) throw new IllegalArgumentException("limit must be >= 1");
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
 
-        // ✅ defaults NEW fields
-        if (exercise.getStepsRequired() == null) exercise.setStepsRequired(false);
-        if (exercise.getCorrectionMode() == null || exercise.getCorrectionMode().isBlank())
-            exercise.setCorrectionMode("AUTO");
+    public String getCatalogETag() {
+        return exerciseCatalog.getETag();
+    }
 
-        if (exercise.getAllowImage() == null)
-            exercise.setAllowImage(exercise.getResponseTypes().contains("IMAGE"));
+    public List<Exercise> getAllExercises(String userLevel) {
+        if (userLevel == null || userLevel.isBlank()) return exerciseCatalog.findAll();
 
-        if (exercise.getAllowAudio() == null)
-            exercise.setAllowAudio(exercise.getResponseTypes().contains("AUDIO"));
+        return exerciseCatalog.findAccessibleTo(UserLevel.fromString(userLevel));
+    }
 
-        exercise.setId(null);
+    public Optional<Exercise> getExerciseById(String id) {
+        return exerciseCatalog.findById(id);
+    }
 
-        LocalDateTime now = LocalDateTime.now();
-        if (exercise.getCreatedAt() == null) exercise.setCreatedAt(now);
-        exercise.setUpdatedAt(now);
+    public Exercise getExerciseByIdOrThrow(String id) {
+        return exerciseCatalog.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Exercise not found: " + id));
+    }
 
-        if (exercise.getEstimatedTime() == null) exercise.setEstimatedTime(5);
-        if (exercise.getPoints() == null) exercise.setPoints(10);
+    public Exercise createExercise(Exercise exercise) {
+        if (exercise == null) throw new IllegalArgumentException("Exercise body is required");
+        if (exercise.getTitle() == null || exercise.getTitle().trim().isEmpty())
+            throw new IllegalArgumentException("Title is required");
 
-        if (exercise.getIsPublished() == null) exercise.setIsPublished(false);
-        if (exercise.getIsApproved() == null) exercise.setIsApproved(false);
+        applyDefaults(exercise);
 
-        return exerciseRepository.save(exercise);
+        Exercise saved = saveUnique(exercise);
+        exerciseCatalog.put(saved);
+        return saved;
     }
 
     public Exercise updateExercise(String id, Exercise patch) {
-        Exercise ex = getExerciseByIdOrThrow(id);
+        // ⚠️ on relit depuis Mongo : l'instance du catalogue est partagée entre les lecteurs
+        Exercise ex = exerciseRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Exercise not found: " + id));
 
         if (patch.getTitle() != null) ex.setTitle(patch.getTitle());
         if (patch.getDescription() != null) ex.setDescription(patch.getDescription());
@@ -125,13 +192,28 @@ public class ExerciseService {
         if (patch.getAllowImage() != null) ex.setAllowImage(patch.getAllowImage());
         if (patch.getAllowAudio() != null) ex.setAllowAudio(patch.getAllowAudio());
 
+        ex.setNormalizedSolution(AnswerMatcher.canonical(ex.getSolution()));
+        ex.setContentHash(ExerciseContentHash.of(ex));
         ex.setUpdatedAt(LocalDateTime.now());
-        return exerciseRepository.save(ex);
+        Exercise saved = saveUnique(ex);
+        exerciseCatalog.put(saved);
+        return saved;
+    }
+
+    // index unique sur contentHash : même titre/énoncé/solution qu'un exercice existant -> 400
+    private Exercise saveUnique(Exercise ex) {
+        try {
+            return exerciseRepository.save(ex);
+        } catch (DuplicateKeyException e) {
+            throw new IllegalArgumentException("An exercise with the same title, statement and solution already exists");
+        }
     }
 
     public void deleteExercise(String id) {
         Exercise ex = getExerciseByIdOrThrow(id);
         exerciseRepository.delete(ex);
+        exerciseCatalog.remove(ex.getId());
+        answerEquivalence.evict(ex.getId());
     }
 
     public List<Exercise> bulkCreate(List<Exercise> exercises) {
@@ -139,7 +221,8 @@ public class ExerciseService {
             throw new IllegalArgumentException("Exercises list is required");
         }
 
-        List<Exercise> toSave = new ArrayList<>();
+        // contentHash -> exercice : même contenu deux fois dans la requête, la dernière version gagne
+        Map<String, Exercise> byHash = new LinkedHashMap<>();
 
         for (Exercise ex : exercises) {
             if (ex == null) continue;
@@ -148,46 +231,87 @@ public class ExerciseService {
                 throw new IllegalArgumentException("Title is required in one of exercises");
             }
 
-            if (ex.getDifficulty() == null || ex.getDifficulty().trim().isEmpty()) {
-                ex.setDifficulty("BEGINNER");
-            }
+            applyDefaults(ex);
+            byHash.put(ex.getContentHash(), ex);
+        }
+        if (byHash.isEmpty()) return List.of();
 
-            if (ex.getTopics() == null) ex.setTopics(new ArrayList<>());
-            if (ex.getTags() == null) ex.setTags(new ArrayList<>());
-            if (ex.getHints() == null) ex.setHints(new ArrayList<>());
-            if (ex.getSteps() == null) ex.setSteps(new ArrayList<>());
+        // même upsert que l'import : renvoyer exercises_seed.json met à jour au lieu de dupliquer
+        upsertByContentHash(byHash.values());
 
-            if (ex.getResponseTypes() == null || ex.getResponseTypes().isEmpty()) {
-                ex.setResponseTypes(List.of("TEXT"));
-            }
+        List<Exercise> saved = mongoTemplate.find(
+                Query.query(Criteria.where("contentHash").in(byHash.keySet())), Exercise.class);
+        exerciseCatalog.putAll(saved);
+        return saved;
+    }
 
-            if (ex.getExplanationText() == null) ex.setExplanationText("");
+    /**
+     * Upsert en un seul aller-retour Mongo, filtré sur contentHash (bulk et import NDJSON).
+     * Unordered : une erreur n'arrête pas les autres opérations, elle remonte en BulkOperationException.
+     */
+    BulkWriteResult upsertByContentHash(Collection<Exercise> exercises) {
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Exercise.class);
+        for (Exercise ex : exercises) {
+            ops.upsert(Query.query(Criteria.where("contentHash").is(ex.getContentHash())), toUpsert(ex));
+        }
+        return ops.execute();
+    }
 
-            if (ex.getStepsRequired() == null) ex.setStepsRequired(false);
-            if (ex.getCorrectionMode() == null || ex.getCorrectionMode().isBlank())
-                ex.setCorrectionMode("AUTO");
+    private Update toUpsert(Exercise ex) {
+        Document doc = new Document();
+        mongoTemplate.getConverter().write(ex, doc);
+        doc.remove("_id");
+        Object createdAt = doc.remove("createdAt");
+
+        Update update = new Update();
+        doc.forEach(update::set);
+        // createdAt d'origine conservé quand l'exercice existe déjà
+        update.setOnInsert("createdAt", createdAt);
+        return update;
+    }
 
-            if (ex.getAllowImage() == null)
-                ex.setAllowImage(ex.getResponseTypes().contains("IMAGE"));
+    /**
+     * Valeurs par défaut communes à toutes les créations (unitaire, bulk, import).
+     */
+    void applyDefaults(Exercise ex) {
+        if (ex.getDifficulty() == null || ex.getDifficulty().trim().isEmpty())
+            ex.setDifficulty("BEGINNER");
 
-            if (ex.getAllowAudio() == null)
-                ex.setAllowAudio(ex.getResponseTypes().contains("AUDIO"));
+        if (ex.getTopics() == null) ex.setTopics(new ArrayList<>());
+        if (ex.getTags() == null) ex.setTags(new ArrayList<>());
+        if (ex.getHints() == null) ex.setHints(new ArrayList<>());
+        if (ex.getSteps() == null) ex.setSteps(new ArrayList<>());
 
-            ex.setId(null);
+        if (ex.getResponseTypes() == null || ex.getResponseTypes().isEmpty()) {
+            ex.setResponseTypes(List.of("TEXT"));
+        }
 
-            LocalDateTime now = LocalDateTime.now();
-            if (ex.getCreatedAt() == null) ex.setCreatedAt(now);
-            ex.setUpdatedAt(now);
+        if (ex.getExplanationText() == null) ex.setExplanationText("");
 
-            if (ex.getEstimatedTime() == null) ex.setEstimatedTime(5);
-            if (ex.getPoints() == null) ex.setPoints(10);
+        // ✅ defaults NEW fields
+        if (ex.getStepsRequired() == null) ex.setStepsRequired(false);
+        if (ex.getCorrectionMode() == null || ex.getCorrectionMode().isBlank())
+            ex.setCorrectionMode("AUTO");
 
-            if (ex.getIsPublished() == null) ex.setIsPublished(false);
-            if (ex.getIsApproved() == null) ex.setIsApproved(false);
+        if (ex.getAllowImage() == null)
+            ex.setAllowImage(ex.getResponseTypes().contains("IMAGE"));
 
-            toSave.add(ex);
-        }
+        if (ex.getAllowAudio() == null)
+            ex.setAllowAudio(ex.getResponseTypes().contains("AUDIO"));
+
+        ex.setId(null);
+
+        LocalDateTime now = LocalDateTime.now();
+        if (ex.getCreatedAt() == null) ex.setCreatedAt(now);
+        ex.setUpdatedAt(now);
+
+        if (ex.getEstimatedTime() == null) ex.setEstimatedTime(5);
+        if (ex.getPoints() == null) ex.setPoints(10);
+
+        if (ex.getIsPublished() == null) ex.setIsPublished(false);
+        if (ex.getIsApproved() == null) ex.setIsApproved(false);
 
-        return exerciseRepository.saveAll(toSave);
+        ex.setNormalizedSolution(AnswerMatcher.canonical(ex.getSolution()));
+        ex.setContentHash(ExerciseContentHash.of(ex));
     }
 }
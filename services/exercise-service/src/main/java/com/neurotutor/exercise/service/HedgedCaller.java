@@ -0,0 +1,219 @@
+package com.neurotutor.exercise.service;
+
+import com.neurotutor.exercise.config.RequestCancellation;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Appel « doublé » vers des répliques équivalentes : la requête part vers une réplique (tourniquet) ;
+ * si elle n'a pas répondu au bout du percentile observé (p95 par défaut), une seconde part vers
+ * la réplique suivante. La première réponse réussie gagne, l'autre requête est annulée.
+ * Budget : sur les window derniers appels, au plus budgetPercent % ont été doublés.
+ * Réservé aux appels idempotents (l'appel perdant a pu être traité par la réplique).
+ */
+public class HedgedCaller implements AutoCloseable {
+
+    // percentile recalculé tous les RECOMPUTE_EVERY échantillons
+    private static final int RECOMPUTE_EVERY = 32;
+    private static final int MIN_SAMPLES = 20;
+
+    private final Supplier<List<String>> replicas;
+    private final double percentile;
+    private final double budget;
+    private final long minDelayNanos;
+    private final long initialDelayNanos;
+    private final ExecutorService pool;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    // fenêtres circulaires (sous this) : latences des requêtes réussies, appels doublés ou non
+    private final long[] latencies;
+    private int latencyPos;
+    private int latencyCount;
+    private int sinceRecompute;
+    private volatile long delayNanos;
+
+    private final boolean[] hedgedCalls;
+    private int callPos;
+    private int callCount;
+    private int hedgedInWindow;
+
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    public HedgedCaller(String name, Supplier<List<String>> replicas, int window, double percentile,
+                        double budgetPercent, Duration minDelay, Duration initialDelay) {
+        this.replicas = replicas;
+        this.percentile = percentile / 100.0;
+        this.budget = budgetPercent / 100.0;
+        this.minDelayNanos = minDelay.toNanos();
+        this.initialDelayNanos = initialDelay.toNanos();
+        this.delayNanos = Math.max(minDelayNanos, initialDelayNanos);
+        this.latencies = new long[window];
+        this.hedgedCalls = new boolean[window];
+        AtomicInteger n = new AtomicInteger();
+        this.pool = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, name + "-hedge-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * @param call requête vers une réplique (reçoit son URL de base)
+     */
+    public <T> T call(Function<String, T> call) {
+        List<String> urls = replicas.get();
+        if (urls.isEmpty()) throw new IllegalStateException("No replica available");
+        int first = Math.floorMod(next.getAndIncrement(), urls.size());
+
+        // une seule réplique : rien à doubler, pas de saut de thread
+        if (urls.size() == 1) {
+            long start = System.nanoTime();
+            T result = call.apply(urls.get(0));
+            recordLatency(System.nanoTime() - start);
+            recordCall(false);
+            return result;
+        }
+
+        Attempt<T> primary = start(call, urls.get(first));
+        try {
+            try {
+                T fast = primary.result.get(delayNanos, TimeUnit.NANOSECONDS);
+                recordCall(false);
+                return fast;
+            } catch (TimeoutException slow) {
+                // réplique lente : doublement si le budget le permet
+            }
+            if (!tryHedge()) {
+                recordCall(false);
+                return primary.result.get();
+            }
+
+            Attempt<T> backup = start(call, urls.get((first + 1) % urls.size()));
+            CompletableFuture<T> winner = new CompletableFuture<>();
+            AtomicInteger failures = new AtomicInteger();
+            for (Attempt<T> a : List.of(primary, backup)) {
+                a.result.whenComplete((value, error) -> {
+                    if (error == null) {
+                        if (winner.complete(value) && a == backup) hedgeWins.incrementAndGet();
+                    } else if (failures.incrementAndGet() == 2) {
+                        winner.completeExceptionally(error);
+                    }
+                });
+            }
+            try {
+                return winner.get();
+            } finally {
+                primary.cancel();
+                backup.cancel();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for replica", e);
+        } finally {
+            primary.cancel();
+        }
+    }
+
+    /**
+     * Délai avant doublement actuellement appliqué.
+     */
+    public Duration hedgeDelay() {
+        return Duration.ofNanos(delayNanos);
+    }
+
+    public long hedges() {
+        return hedges.get();
+    }
+
+    /**
+     * Appels doublés où la seconde requête a répondu la première.
+     */
+    public long hedgeWins() {
+        return hedgeWins.get();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private <T> Attempt<T> start(Function<String, T> call, String url) {
+        RequestCancellation scope = new RequestCancellation();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = pool.submit(() -> {
+            long start = System.nanoTime();
+            try {
+                T value = scope.within(() -> call.apply(url));
+                recordLatency(System.nanoTime() - start);
+                result.complete(value);
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return new Attempt<>(result, task, scope);
+    }
+
+    private synchronized boolean tryHedge() {
+        // l'appel en cours compte dans la fenêtre
+        int calls = Math.min(callCount + 1, hedgedCalls.length);
+        if (hedgedInWindow + 1 > budget * calls) return false;
+        recordCall(true);
+        hedges.incrementAndGet();
+        return true;
+    }
+
+    private synchronized void recordCall(boolean hedged) {
+        if (callCount == hedgedCalls.length) {
+            if (hedgedCalls[callPos]) hedgedInWindow--;
+        } else {
+            callCount++;
+        }
+        hedgedCalls[callPos] = hedged;
+        if (hedged) hedgedInWindow++;
+        callPos = (callPos + 1) % hedgedCalls.length;
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        latencies[latencyPos] = nanos;
+        latencyPos = (latencyPos + 1) % latencies.length;
+        if (latencyCount < latencies.length) latencyCount++;
+
+        if (latencyCount >= MIN_SAMPLES && ++sinceRecompute >= RECOMPUTE_EVERY) {
+            sinceRecompute = 0;
+            long[] sorted = Arrays.copyOf(latencies, latencyCount);
+            Arrays.sort(sorted);
+            int idx = (int) Math.ceil(percentile * latencyCount) - 1;
+            delayNanos = Math.max(minDelayNanos, sorted[Math.max(0, idx)]);
+        }
+    }
+
+    private record Attempt<T>(CompletableFuture<T> result, Future<?> task, RequestCancellation scope) {
+
+        // sans effet si la requête est déjà terminée
+        void cancel() {
+            if (result.isDone()) return;
+            scope.cancel();
+            task.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.neurotutor.exercise.service;
+
+/**
+ * Idempotency-Key déjà en cours de traitement au-delà de l'attente autorisée (409 : le client réessaie plus tard).
+ */
+public class IdempotencyConflictException extends RuntimeException {
+
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
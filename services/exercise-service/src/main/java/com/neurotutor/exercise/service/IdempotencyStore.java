@@ -0,0 +1,165 @@
+package com.neurotutor.exercise.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Rejeu des requêtes POST répétées avec le même en-tête Idempotency-Key (Wi-Fi instable => le client renvoie).
+ * Clé = (Idempotency-Key, userId) : deux élèves ne partagent jamais une réponse.
+ * - premier appel : exécuté, sa réponse est gardée ttl ;
+ * - doublon pendant l'exécution : attend le premier (au plus wait) puis reçoit la même réponse ;
+ * - doublon après : réponse rejouée, sans nouvelle Submission ni nouvel appel AI ;
+ * - même clé avec une autre requête (empreinte différente) : refus (400).
+ * Un premier appel en erreur n'est pas mémorisé : le renvoi est réexécuté.
+ */
+@Component
+public class IdempotencyStore {
+
+    private final long ttlNanos;
+    private final long waitNanos;
+    private final int maxEntries;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep = new AtomicLong();
+
+    private final AtomicLong replays = new AtomicLong();
+
+    public IdempotencyStore(
+            @Value("${idempotency.ttl:24h}") Duration ttl,
+            @Value("${idempotency.wait:30s}") Duration wait,
+            @Value("${idempotency.max-entries:100000}") int maxEntries,
+            MeterRegistry meterRegistry
+    ) {
+        this.ttlNanos = ttl.toNanos();
+        this.waitNanos = wait.toNanos();
+        this.maxEntries = maxEntries;
+        this.nextSweep.set(System.nanoTime());
+
+        FunctionCounter.builder("idempotency.replays", replays, AtomicLong::get)
+                .description("Requêtes servies par la réponse d'un appel précédent (même Idempotency-Key)")
+                .register(meterRegistry);
+        Gauge.builder("idempotency.size", entries, Map::size)
+                .register(meterRegistry);
+    }
+
+    public record Result<T>(T value, boolean replayed) {
+    }
+
+    /**
+     * @param fingerprint résumé de la requête (cible + corps) : une clé ne vaut que pour une requête
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Result<T> execute(String idempotencyKey, String userId, String fingerprint, Supplier<T> action) {
+        if (idempotencyKey.length() > 255) throw new IllegalArgumentException("Idempotency-Key is too long");
+
+        long now = System.nanoTime();
+        sweep(now);
+
+        Key key = new Key(idempotencyKey, userId);
+        Entry mine = new Entry(fingerprint);
+        Entry existing = entries.compute(key, (k, e) -> e == null || e.isExpired(now) ? mine : e);
+
+        if (existing != mine) {
+            if (!existing.fingerprint.equals(fingerprint)) {
+                throw new IllegalArgumentException("Idempotency-Key already used for a different request");
+            }
+            replays.incrementAndGet();
+            return new Result<>((T) await(existing), true);
+        }
+
+        if (entries.size() > maxEntries) {
+            // plein même après purge : on n'empêche pas la soumission, on renonce juste au rejeu
+            entries.remove(key, mine);
+            System.out.println("[Idempotency] Store full (" + maxEntries + "), key not retained");
+        }
+
+        T value;
+        try {
+            value = action.get();
+        } catch (RuntimeException | Error e) {
+            entries.remove(key, mine);
+            mine.result.completeExceptionally(e);
+            throw e;
+        }
+        mine.expiresAt = System.nanoTime() + ttlNanos;
+        mine.result.complete(value);
+        return new Result<>(value, false);
+    }
+
+    /**
+     * Empreinte SHA-256 des éléments d'une requête (toString de chacun).
+     */
+    public static String fingerprint(Object... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object part : parts) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Object await(Entry entry) {
+        try {
+            return entry.result.get(waitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException("A request with this Idempotency-Key is still being processed");
+        } catch (ExecutionException e) {
+            // le premier appel a échoué : même erreur pour ceux qui l'attendaient
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            if (e.getCause() instanceof Error err) throw err;
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException("Interrupted while waiting for the original request");
+        }
+    }
+
+    // purge des entrées expirées, au plus une fois par minute (ou dès que le plafond est atteint)
+    private void sweep(long now) {
+        long due = nextSweep.get();
+        if ((now - due < 0 && entries.size() < maxEntries) || !nextSweep.compareAndSet(due, now + TimeUnit.MINUTES.toNanos(1))) {
+            return;
+        }
+        entries.entrySet().removeIf(e -> e.getValue().isExpired(now));
+    }
+
+    private record Key(String idempotencyKey, String userId) {
+    }
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final CompletableFuture<Object> result;
+        // Long.MAX_VALUE tant que l'appel est en cours : jamais expiré pendant l'exécution
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        private Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+            this.result = new CompletableFuture<>();
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt != Long.MAX_VALUE && now - expiresAt > 0;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.neurotutor.exercise.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Prépare une photo de copie pour l'OCR avant l'envoi à l'ai-service :
+ * réduction (lecture sous-échantillonnée puis lissage) au plus max-dimension pixels de côté,
+ * niveaux de gris, binarisation adaptative (seuil local de Bradley : résiste à l'éclairage
+ * inégal d'une photo de téléphone), recadrage sur l'écriture, PNG 1 bit.
+ * Tourne sur un pool dédié borné (décodage = CPU + mémoire) ; en cas d'échec, de file pleine
+ * ou de résultat plus gros que l'original, l'image d'origine est envoyée telle quelle.
+ */
+@Component
+public class ImagePreprocessor {
+
+    // binarisation : fenêtre = 1/16 du plus grand côté, pixel noir s'il est 15 % sous la moyenne locale
+    private static final int WINDOW_DIVISOR = 16;
+    private static final double THRESHOLD = 0.15;
+    // recadrage : marge blanche conservée, et lignes / colonnes avec trop peu d'encre ignorées (bruit)
+    private static final int CROP_MARGIN = 12;
+    private static final int NOISE_DIVISOR = 500;
+
+    private final boolean enabled;
+    private final int maxDimension;
+    private final long maxPixels;
+    private final long timeoutNanos;
+    private final ThreadPoolExecutor workers;
+
+    private final Timer duration;
+    private final Counter bytesIn;
+    private final Counter bytesOut;
+    private final Counter fallbacks;
+
+    public ImagePreprocessor(
+            @Value("${ocr.preprocess.enabled:true}") boolean enabled,
+            @Value("${ocr.preprocess.max-dimension:2000}") int maxDimension,
+            @Value("${ocr.preprocess.max-source-pixels:50000000}") long maxPixels,
+            @Value("${ocr.preprocess.workers:2}") int workers,
+            @Value("${ocr.preprocess.queue-capacity:32}") int queueCapacity,
+            @Value("${ocr.preprocess.timeout:5s}") Duration timeout,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        this.maxDimension = maxDimension;
+        this.maxPixels = maxPixels;
+        this.timeoutNanos = timeout.toNanos();
+
+        AtomicInteger n = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread t = new Thread(r, "ocr-preprocess-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.workers.allowCoreThreadTimeOut(true);
+
+        this.duration = Timer.builder("ocr.preprocess.time")
+                .description("Prétraitement d'une image avant OCR")
+                .register(meterRegistry);
+        this.bytesIn = Counter.builder("ocr.preprocess.bytes.in").baseUnit("bytes")
+                .description("Taille des images reçues")
+                .register(meterRegistry);
+        this.bytesOut = Counter.builder("ocr.preprocess.bytes.out").baseUnit("bytes")
+                .description("Taille des images envoyées à l'OCR")
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("ocr.preprocess.fallbacks")
+                .description("Images envoyées sans prétraitement (échec, file pleine, délai, pas de gain)")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void close() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * PNG prêt pour l'OCR, ou null pour envoyer l'image d'origine.
+     */
+    public byte[] preprocessForOcr(MultipartFile image) {
+        if (!enabled) return null;
+
+        Future<byte[]> task;
+        try {
+            task = workers.submit(() -> {
+                try (InputStream in = image.getInputStream()) {
+                    return toOcrPng(in);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return fallback("queue full");
+        }
+
+        long start = System.nanoTime();
+        byte[] png;
+        try {
+            png = task.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            task.cancel(true);
+            return fallback("timeout");
+        } catch (ExecutionException e) {
+            return fallback(String.valueOf(e.getCause().getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.cancel(true);
+            return fallback("interrupted");
+        }
+        duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        bytesIn.increment(image.getSize());
+        if (png.length >= image.getSize()) {
+            // déjà compacte (dessin sur canvas, scan propre) : rien à gagner
+            bytesOut.increment(image.getSize());
+            fallbacks.increment();
+            return null;
+        }
+        bytesOut.increment(png.length);
+        return png;
+    }
+
+    /**
+     * Pipeline complet, sur le thread appelant.
+     *
+     * @throws IOException format non lisible par ImageIO, ou image source au-delà de max-source-pixels
+     */
+    public byte[] toOcrPng(InputStream in) throws IOException {
+        BufferedImage gray = readGray(in);
+        int w = gray.getWidth();
+        int h = gray.getHeight();
+        byte[] pixels = ((DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+
+        boolean[] ink = binarize(pixels, w, h);
+        int[] box = contentBounds(ink, w, h);
+        return encodePng(ink, w, box);
+    }
+
+    // ===== Étapes =====
+
+    private BufferedImage readGray(InputStream in) throws IOException {
+        BufferedImage src;
+        try (ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = iis == null ? null : ImageIO.getImageReaders(iis);
+            if (readers == null || !readers.hasNext()) throw new IOException("Unsupported image format");
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int w = reader.getWidth(0);
+                int h = reader.getHeight(0);
+                if ((long) w * h > maxPixels) throw new IOException("Image too large: " + w + "x" + h);
+
+                // décodage sous-échantillonné : une photo de 12 Mpx n'est jamais décodée en entier
+                int step = Math.max(1, Math.max(w, h) / maxDimension);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                src = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        double scale = Math.min(1.0, (double) maxDimension / Math.max(src.getWidth(), src.getHeight()));
+        int w = Math.max(1, (int) Math.round(src.getWidth() * scale));
+        int h = Math.max(1, (int) Math.round(src.getHeight() * scale));
+
+        // fond blanc d'abord : un dessin sur canvas arrive avec un fond transparent
+        BufferedImage gray = new BufferedImage(w, h, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = gray.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, w, h);
+            g.drawImage(src, 0, 0, w, h, null);
+        } finally {
+            g.dispose();
+        }
+        return gray;
+    }
+
+    // seuil de Bradley : somme locale lue dans l'image intégrale en O(1) par pixel
+    private static boolean[] binarize(byte[] pixels, int w, int h) {
+        int[] integral = new int[(w + 1) * (h + 1)];
+        for (int y = 0; y < h; y++) {
+            int row = 0;
+            for (int x = 0; x < w; x++) {
+                row += pixels[y * w + x] & 0xFF;
+                integral[(y + 1) * (w + 1) + x + 1] = integral[y * (w + 1) + x + 1] + row;
+            }
+        }
+
+        int half = Math.max(1, Math.max(w, h) / WINDOW_DIVISOR / 2);
+        boolean[] ink = new boolean[w * h];
+        for (int y = 0; y < h; y++) {
+            int y0 = Math.max(0, y - half);
+            int y1 = Math.min(h, y + half + 1);
+            for (int x = 0; x < w; x++) {
+                int x0 = Math.max(0, x - half);
+                int x1 = Math.min(w, x + half + 1);
+                long count = (long) (x1 - x0) * (y1 - y0);
+                long sum = (long) integral[y1 * (w + 1) + x1] - integral[y0 * (w + 1) + x1]
+                        - integral[y1 * (w + 1) + x0] + integral[y0 * (w + 1) + x0];
+                ink[y * w + x] = (pixels[y * w + x] & 0xFF) * count <= sum * (1.0 - THRESHOLD);
+            }
+        }
+        return ink;
+    }
+
+    // {x0, y0, x1, y1} (exclusifs) ; toute l'image s'il n'y a pas d'encre
+    private static int[] contentBounds(boolean[] ink, int w, int h) {
+        int[] rows = new int[h];
+        int[] cols = new int[w];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                if (ink[y * w + x]) {
+                    rows[y]++;
+                    cols[x]++;
+                }
+            }
+        }
+        int minRow = Math.max(1, w / NOISE_DIVISOR);
+        int minCol = Math.max(1, h / NOISE_DIVISOR);
+
+        int y0 = 0;
+        while (y0 < h && rows[y0] < minRow) y0++;
+        if (y0 == h) return new int[]{0, 0, w, h};
+        int y1 = h;
+        while (rows[y1 - 1] < minRow) y1--;
+        int x0 = 0;
+        while (x0 < w && cols[x0] < minCol) x0++;
+        if (x0 == w) return new int[]{0, 0, w, h};
+        int x1 = w;
+        while (cols[x1 - 1] < minCol) x1--;
+
+        return new int[]{
+                Math.max(0, x0 - CROP_MARGIN), Math.max(0, y0 - CROP_MARGIN),
+                Math.min(w, x1 + CROP_MARGIN), Math.min(h, y1 + CROP_MARGIN)
+        };
+    }
+
+    private static byte[] encodePng(boolean[] ink, int w, int[] box) throws IOException {
+        int cw = box[2] - box[0];
+        int ch = box[3] - box[1];
+        // 1 bit par pixel (0 = noir, 1 = blanc), lignes complétées à l'octet
+        BufferedImage out = new BufferedImage(cw, ch, BufferedImage.TYPE_BYTE_BINARY);
+        byte[] packed = ((DataBufferByte) out.getRaster().getDataBuffer()).getData();
+        int stride = (cw + 7) / 8;
+        for (int y = 0; y < ch; y++) {
+            int src = (box[1] + y) * w + box[0];
+            for (int x = 0; x < cw; x++) {
+                if (!ink[src + x]) packed[y * stride + (x >> 3)] |= (byte) (0x80 >>> (x & 7));
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(out, "png", bytes);
+        return bytes.toByteArray();
+    }
+
+    private byte[] fallback(String reason) {
+        fallbacks.increment();
+        System.out.println("[OCR] Preprocessing skipped: " + reason);
+        return null;
+    }
+}
@@ -0,0 +1,157 @@
+package com.neurotutor.exercise.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Regroupe des requêtes individuelles en lots : un lot part dès qu'il atteint maxSize éléments,
+ * ou maxDelay après l'arrivée de son premier élément. L'expéditeur reçoit la liste des requêtes
+ * et doit renvoyer une réponse par requête, dans le même ordre ; chaque appelant récupère la sienne.
+ * Les lots en attente d'un expéditeur sont bornés (queueCapacity) : au-delà, le lot est refusé
+ * et ses appelants échouent aussitôt (RejectedExecutionException) au lieu de s'empiler.
+ */
+public class MicroBatcher<Q, R> implements AutoCloseable {
+
+    private final int maxSize;
+    private final long maxDelayNanos;
+    private final Function<List<Q>, List<R>> sender;
+
+    private final ScheduledExecutorService timer;
+    private final ThreadPoolExecutor senders;
+
+    private final Object lock = new Object();
+    private List<Pending<Q, R>> pending = new ArrayList<>();
+    private ScheduledFuture<?> deadline;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong items = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public MicroBatcher(String name, int maxSize, Duration maxDelay, int senderThreads, int queueCapacity,
+                        Function<List<Q>, List<R>> sender) {
+        if (maxSize < 1) throw new IllegalArgumentException("maxSize must be >= 1");
+        this.maxSize = maxSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.sender = sender;
+        this.timer = Executors.newSingleThreadScheduledExecutor(daemon(name + "-timer"));
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemon(name + "-send"));
+    }
+
+    public CompletableFuture<R> submit(Q request) {
+        Pending<Q, R> p = new Pending<>(request, new CompletableFuture<>());
+        List<Pending<Q, R>> full = null;
+
+        synchronized (lock) {
+            pending.add(p);
+            if (pending.size() >= maxSize) {
+                full = drain();
+            } else if (pending.size() == 1) {
+                deadline = timer.schedule(this::flushDue, maxDelayNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (full != null) dispatch(full);
+        return p.future;
+    }
+
+    /**
+     * Lots envoyés.
+     */
+    public long batches() {
+        return batches.get();
+    }
+
+    /**
+     * Requêtes envoyées (items / batches = taille moyenne des lots).
+     */
+    public long items() {
+        return items.get();
+    }
+
+    /**
+     * Lots refusés (expéditeurs occupés et file pleine).
+     */
+    public long rejected() {
+        return rejected.get();
+    }
+
+    @Override
+    public void close() {
+        List<Pending<Q, R>> rest;
+        synchronized (lock) {
+            rest = drain();
+        }
+        if (!rest.isEmpty()) dispatch(rest);
+        timer.shutdownNow();
+        senders.shutdown();
+    }
+
+    private void flushDue() {
+        List<Pending<Q, R>> batch;
+        synchronized (lock) {
+            batch = drain();
+        }
+        if (!batch.isEmpty()) dispatch(batch);
+    }
+
+    // appelé sous lock
+    private List<Pending<Q, R>> drain() {
+        if (deadline != null) {
+            deadline.cancel(false);
+            deadline = null;
+        }
+        List<Pending<Q, R>> out = pending;
+        pending = new ArrayList<>();
+        return out;
+    }
+
+    private void dispatch(List<Pending<Q, R>> batch) {
+        try {
+            senders.execute(() -> send(batch));
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            for (Pending<Q, R> p : batch) p.future.completeExceptionally(e);
+            return;
+        }
+        batches.incrementAndGet();
+        items.addAndGet(batch.size());
+    }
+
+    private void send(List<Pending<Q, R>> batch) {
+        try {
+            List<R> responses = sender.apply(batch.stream().map(Pending::request).toList());
+            if (responses == null || responses.size() != batch.size()) {
+                throw new IllegalStateException("Batch returned " + (responses == null ? 0 : responses.size())
+                        + " responses for " + batch.size() + " requests");
+            }
+            for (int i = 0; i < batch.size(); i++) batch.get(i).future.complete(responses.get(i));
+        } catch (Throwable e) {
+            for (Pending<Q, R> p : batch) p.future.completeExceptionally(e);
+        }
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private record Pending<Q, R>(Q request, CompletableFuture<R> future) {
+    }
+}
@@ -1,38 +1,216 @@
 package com.neurotutor.exercise.service;
 
+import com.neurotutor.exercise.dto.ia.AiStepEvalBatchRequest;
+import com.neurotutor.exercise.dto.ia.AiStepEvalBatchResponse;
 import com.neurotutor.exercise.dto.ia.AiStepEvalRequest;
 import com.neurotutor.exercise.dto.ia.AiStepEvalResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
 @Service
 @RequiredArgsConstructor
 public class OcrAiClient {
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    // ✅ client poolé partagé (RestTemplateConfig) : timeouts + keep-alive
+    private final RestTemplate restTemplate;
+
+    // ✅ envoi des images en flux (corps non bufferisé)
+    @Qualifier("uploadRestTemplate")
+    private final RestTemplate uploadRestTemplate;
+
+    private final AiStepEvalCache stepEvalCache;
+    private final AiReplicas aiReplicas;
+    private final ImagePreprocessor imagePreprocessor;
+    private final OcrResultCache ocrCache;
+    private final MeterRegistry meterRegistry;
+
+    // ✅ appels identiques simultanés (toute une classe sur la même erreur / la même photo) => un seul appel AI
+    private final SingleFlight<AiStepEvalCache.Key, AiStepEvalResponse> stepEvalFlights = new SingleFlight<>();
+    private final SingleFlight<String, String> ocrFlights = new SingleFlight<>();
+
+    @Value("${ai.service.base-url:http://127.0.0.1:8082}")
+    private String aiBaseUrl;
+
+    // ✅ micro-batching des évaluations d'étapes (désactivable : appels unitaires comme avant)
+    @Value("${ai.step-eval.batch.enabled:true}")
+    private boolean batchEnabled;
+    @Value("${ai.step-eval.batch.max-size:16}")
+    private int batchMaxSize;
+    @Value("${ai.step-eval.batch.max-delay:5ms}")
+    private Duration batchMaxDelay;
+    @Value("${ai.step-eval.batch.senders:4}")
+    private int batchSenders;
+    // lots en attente d'un expéditeur ; au-delà : pas de réponse AI (repli local) plutôt qu'une file sans fin
+    @Value("${ai.step-eval.batch.queue-capacity:32}")
+    private int batchQueueCapacity;
+    // attente maximale d'un appelant (file + lot + replis unitaires), alignée sur l'échéance HTTP
+    @Value("${ai.step-eval.batch.max-wait:${http.client.total-timeout:15s}}")
+    private Duration batchMaxWait;
+
+    // ✅ AI dégradée => on coupe vite (circuit) et on borne les appels simultanés (bulkhead) : replis locaux
+    @Value("${ai.circuit.window-size:20}")
+    private int circuitWindowSize;
+    @Value("${ai.circuit.minimum-calls:10}")
+    private int circuitMinimumCalls;
+    @Value("${ai.circuit.failure-rate:50}")
+    private double circuitFailureRate;
+    @Value("${ai.circuit.open-duration:30s}")
+    private Duration circuitOpenDuration;
+    @Value("${ai.circuit.half-open-probes:3}")
+    private int circuitHalfOpenProbes;
+    @Value("${ai.bulkhead.max-concurrent:16}")
+    private int bulkheadMaxConcurrent;
+    @Value("${ai.bulkhead.max-wait:50ms}")
+    private Duration bulkheadMaxWait;
+
+    // ✅ queue de latence du modèle : 2e requête vers une autre réplique au-delà du p95 observé
+    @Value("${ai.hedge.enabled:true}")
+    private boolean hedgeEnabled;
+    @Value("${ai.hedge.percentile:95}")
+    private double hedgePercentile;
+    @Value("${ai.hedge.budget-percent:10}")
+    private double hedgeBudgetPercent;
+    @Value("${ai.hedge.window:1000}")
+    private int hedgeWindow;
+    @Value("${ai.hedge.min-delay:50ms}")
+    private Duration hedgeMinDelay;
+    @Value("${ai.hedge.initial-delay:2s}")
+    private Duration hedgeInitialDelay;
 
-    // ✅ mets ça dans application.properties plus tard
-    private final String AI_BASE_URL = "http://127.0.0.1:8082";
+    private MicroBatcher<AiStepEvalRequest, AiStepEvalResponse> stepEvalBatcher;
+    private ThreadPoolExecutor batchFallbacks;
+    private HedgedCaller evalCaller;
+    private CircuitBreaker aiCircuit;
+    private Bulkhead aiBulkhead;
+
+    @PostConstruct
+    void init() {
+        // une 4xx veut dire que l'AI répond : seuls les erreurs réseau, timeouts et 5xx ouvrent le circuit
+        aiCircuit = new CircuitBreaker("ai-service", circuitWindowSize, circuitMinimumCalls, circuitFailureRate,
+                circuitOpenDuration, circuitHalfOpenProbes, e -> !(e instanceof HttpClientErrorException));
+        aiBulkhead = new Bulkhead("ai-service", bulkheadMaxConcurrent, bulkheadMaxWait);
+
+        Gauge.builder("ai.circuit.state", aiCircuit, c -> c.state().ordinal())
+                .description("État du circuit vers l'AI (0 fermé, 1 ouvert, 2 semi-ouvert)")
+                .register(meterRegistry);
+        FunctionCounter.builder("ai.circuit.rejected", aiCircuit, CircuitBreaker::rejected)
+                .description("Appels AI refusés par le circuit ouvert")
+                .register(meterRegistry);
+        Gauge.builder("ai.bulkhead.active", aiBulkhead, Bulkhead::active)
+                .description("Appels AI en cours")
+                .register(meterRegistry);
+        FunctionCounter.builder("ai.bulkhead.rejected", aiBulkhead, Bulkhead::rejected)
+                .description("Appels AI refusés faute de place")
+                .register(meterRegistry);
+
+        if (hedgeEnabled) {
+            evalCaller = new HedgedCaller("ai-eval", aiReplicas::urls, hedgeWindow, hedgePercentile,
+                    hedgeBudgetPercent, hedgeMinDelay, hedgeInitialDelay);
+            FunctionCounter.builder("ai.hedge.sent", evalCaller, HedgedCaller::hedges)
+                    .description("Évaluations doublées vers une seconde réplique")
+                    .register(meterRegistry);
+            FunctionCounter.builder("ai.hedge.wins", evalCaller, HedgedCaller::hedgeWins)
+                    .description("Évaluations doublées gagnées par la seconde réplique")
+                    .register(meterRegistry);
+            Gauge.builder("ai.hedge.delay", evalCaller, c -> c.hedgeDelay().toMillis())
+                    .baseUnit("milliseconds")
+                    .description("Délai avant doublement (percentile observé)")
+                    .register(meterRegistry);
+        }
+
+        if (batchEnabled) {
+            stepEvalBatcher = new MicroBatcher<>("ai-step-eval", batchMaxSize, batchMaxDelay, batchSenders,
+                    batchQueueCapacity, this::callEvaluateStepsBatch);
+            // appels unitaires de repli d'un lot, en parallèle ; autant de threads que d'appels admis par le bulkhead
+            AtomicInteger n = new AtomicInteger();
+            batchFallbacks = new ThreadPoolExecutor(0, bulkheadMaxConcurrent, 60, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), r -> {
+                Thread t = new Thread(r, "ai-step-eval-fallback-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            FunctionCounter.builder("ai.evaluation.batch.calls", stepEvalBatcher, MicroBatcher::batches)
+                    .description("Lots d'évaluations envoyés à l'AI")
+                    .register(meterRegistry);
+            FunctionCounter.builder("ai.evaluation.batch.requests", stepEvalBatcher, MicroBatcher::items)
+                    .description("Évaluations envoyées via les lots")
+                    .register(meterRegistry);
+            FunctionCounter.builder("ai.evaluation.batch.rejected", stepEvalBatcher, MicroBatcher::rejected)
+                    .description("Lots refusés (file des expéditeurs pleine)")
+                    .register(meterRegistry);
+        }
+
+        FunctionCounter.builder("ai.evaluation.singleflight.coalesced", stepEvalFlights, SingleFlight::coalesced)
+                .description("Évaluations d'étapes servies par un appel identique déjà en cours")
+                .register(meterRegistry);
+        FunctionCounter.builder("ai.ocr.singleflight.coalesced", ocrFlights, SingleFlight::coalesced)
+                .description("OCR servis par un appel en cours sur la même image")
+                .register(meterRegistry);
+    }
 
+    @PreDestroy
+    void close() {
+        if (stepEvalBatcher != null) stepEvalBatcher.close();
+        if (batchFallbacks != null) batchFallbacks.shutdownNow();
+        if (evalCaller != null) evalCaller.close();
+    }
+
+    // ✅ même image (octets identiques) => résultat OCR en cache (mémoire, puis disque), sans appel AI
     public String extractTextFromImage(MultipartFile image) {
+        String hash = sha256(image);
+        if (hash == null) return callOcr(image);
+        return ocrCache.get(hash, h -> ocrFlights.execute(h, () -> callOcr(image)));
+    }
+
+    private String callOcr(MultipartFile image) {
+        // ✅ circuit ouvert : repli immédiat, sans décoder ni prétraiter la photo
+        if (aiCircuit.isOpen()) return "";
         try {
-            String url = AI_BASE_URL + "/ocr/process";
+            String url = aiBaseUrl + "/ocr/process";
 
             MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
             body.add("text", "");
 
-            ByteArrayResource resource = new ByteArrayResource(image.getBytes()) {
-                @Override
-                public String getFilename() {
-                    return image.getOriginalFilename() == null ? "image.png" : image.getOriginalFilename();
-                }
-            };
+            // ✅ photo réduite / binarisée / recadrée (PNG compact) ; sinon l'originale, lue en flux
+            // depuis le fichier temporaire du multipart (jamais copiée en byte[])
+            byte[] png = imagePreprocessor.preprocessForOcr(image);
+            Resource resource = png != null ? pngResource(png, image) : streamed(image);
 
             body.add("file", resource);
 
@@ -41,7 +219,7 @@ public class OcrAiClient {
 
             HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
 
-            ResponseEntity<String> response = restTemplate.postForEntity(url, requestEntity, String.class);
+            ResponseEntity<String> response = guarded(() -> uploadRestTemplate.postForEntity(url, requestEntity, String.class));
 
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 return response.getBody();
@@ -54,17 +232,79 @@ public class OcrAiClient {
         }
     }
 
+    // ✅ même contenu (exercice, étapes, réponse) => même feedback : servi depuis le cache
     public AiStepEvalResponse evaluateSteps(AiStepEvalRequest req) {
+        return stepEvalCache.get(req,
+                r -> stepEvalFlights.execute(AiStepEvalCache.Key.of(r), () -> dispatchEvaluateSteps(r)));
+    }
+
+    private AiStepEvalResponse dispatchEvaluateSteps(AiStepEvalRequest req) {
+        // circuit ouvert : inutile d'attendre le lot, repli immédiat
+        if (aiCircuit.isOpen()) return null;
+        if (stepEvalBatcher == null) return callEvaluateSteps(req);
         try {
-            String url = AI_BASE_URL + "/evaluation/evaluate-steps";
+            return stepEvalBatcher.submit(req).get(batchMaxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            System.out.println("[AI] evaluateSteps batch: no response after " + batchMaxWait.toMillis() + " ms");
+            return null;
+        } catch (ExecutionException e) {
+            System.out.println("[AI] Error in evaluateSteps batch: " + e.getCause());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    // un lot = un appel /evaluate-steps/batch ; lot d'un seul élément ou AI sans endpoint batch => appels unitaires
+    private List<AiStepEvalResponse> callEvaluateStepsBatch(List<AiStepEvalRequest> reqs) {
+        if (reqs.size() == 1) return Collections.singletonList(callEvaluateSteps(reqs.get(0)));
+
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            HttpEntity<AiStepEvalBatchRequest> entity = new HttpEntity<>(new AiStepEvalBatchRequest(reqs), headers);
+
+            ResponseEntity<AiStepEvalBatchResponse> resp = guarded(() -> onEvalReplica(base -> restTemplate.exchange(
+                    base + "/evaluation/evaluate-steps/batch", HttpMethod.POST, entity, AiStepEvalBatchResponse.class)));
+
+            AiStepEvalBatchResponse body = resp.getBody();
+            if (resp.getStatusCode().is2xxSuccessful() && body != null && body.getResponses() != null
+                    && body.getResponses().size() == reqs.size()) {
+                return body.getResponses();
+            }
+            System.out.println("[AI] evaluateSteps batch unusable response: " + resp.getStatusCode());
+        } catch (DependencyUnavailableException e) {
+            // AI indisponible : les appels unitaires seraient refusés de la même façon
+            System.out.println("[AI] evaluateSteps batch skipped: " + e.getMessage());
+            return Collections.nCopies(reqs.size(), null);
+        } catch (Exception e) {
+            System.out.println("[AI] Error calling evaluateSteps batch: " + e.getMessage());
+        }
+
+        // replis unitaires en parallèle : le lot attend le plus lent, pas la somme
+        List<CompletableFuture<AiStepEvalResponse>> calls = new ArrayList<>(reqs.size());
+        for (AiStepEvalRequest r : reqs) {
+            try {
+                calls.add(CompletableFuture.supplyAsync(() -> callEvaluateSteps(r), batchFallbacks));
+            } catch (RejectedExecutionException e) {
+                calls.add(CompletableFuture.completedFuture(null));
+            }
+        }
+        List<AiStepEvalResponse> out = new ArrayList<>(reqs.size());
+        for (CompletableFuture<AiStepEvalResponse> call : calls) out.add(call.join());
+        return out;
+    }
 
+    private AiStepEvalResponse callEvaluateSteps(AiStepEvalRequest req) {
+        try {
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
 
             HttpEntity<AiStepEvalRequest> entity = new HttpEntity<>(req, headers);
 
-            ResponseEntity<AiStepEvalResponse> resp =
-                    restTemplate.exchange(url, HttpMethod.POST, entity, AiStepEvalResponse.class);
+            ResponseEntity<AiStepEvalResponse> resp = guarded(() -> onEvalReplica(base -> restTemplate.exchange(
+                    base + "/evaluation/evaluate-steps", HttpMethod.POST, entity, AiStepEvalResponse.class)));
 
             if (!resp.getStatusCode().is2xxSuccessful()) {
                 System.out.println("[AI] evaluateSteps non-2xx: " + resp.getStatusCode());
@@ -77,4 +317,67 @@ public class OcrAiClient {
             return null;
         }
     }
+
+    // évaluation = idempotente : appel doublé entre répliques (ou réplique principale si désactivé).
+    // Circuit et bulkhead voient l'appel logique : une requête perdante annulée n'est pas un échec.
+    private <T> T onEvalReplica(Function<String, T> call) {
+        if (evalCaller == null) return call.apply(aiReplicas.urls().get(0));
+        return evalCaller.call(call);
+    }
+
+    // bulkhead autour du circuit : un appel refusé faute de place ne consomme pas de sonde semi-ouverte
+    private <T> T guarded(Supplier<T> call) {
+        return aiBulkhead.execute(() -> aiCircuit.execute(call));
+    }
+
+    private static Resource pngResource(byte[] png, MultipartFile image) {
+        String original = image.getOriginalFilename() == null ? "image" : image.getOriginalFilename();
+        int dot = original.lastIndexOf('.');
+        String filename = (dot > 0 ? original.substring(0, dot) : original) + ".png";
+        return new ByteArrayResource(png) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+        };
+    }
+
+    // contentLength connu sans lecture ; chaque getInputStream() rouvre le contenu du multipart (disque ou mémoire)
+    static Resource streamed(MultipartFile image) {
+        String filename = image.getOriginalFilename() == null ? "image.png" : image.getOriginalFilename();
+        return new AbstractResource() {
+            @Override
+            public String getDescription() {
+                return "multipart image [" + filename + "]";
+            }
+
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+
+            @Override
+            public long contentLength() {
+                return image.getSize();
+            }
+
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return image.getInputStream();
+            }
+        };
+    }
+
+    // empreinte du contenu de l'image, lue en flux (null si illisible : pas de regroupement)
+    private static String sha256(MultipartFile image) {
+        try (InputStream in = image.getInputStream()) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) digest.update(buffer, 0, n);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
 }
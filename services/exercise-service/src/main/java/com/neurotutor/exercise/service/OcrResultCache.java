@@ -0,0 +1,262 @@
+package com.neurotutor.exercise.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Cache des résultats OCR adressé par contenu : clé = SHA-256 des octets de l'image envoyée par l'élève
+ * (même photo renvoyée, même fiche photographiée par toute une classe => pas de nouvel appel AI).
+ * Deux niveaux, LRU tous les deux :
+ * - mémoire : les entrées chaudes, bornées en nombre ;
+ * - disque : un fichier par résultat (dir/ab/abcdef....txt), borné en octets et en nombre, conservé
+ *   entre deux redémarrages (l'ordre LRU est reconstruit depuis les dates de dernier accès des fichiers).
+ * Un résultat vide (OCR en erreur ou coupé par le circuit) n'est jamais mis en cache.
+ */
+@Component
+public class OcrResultCache {
+
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+    private static final String SUFFIX = ".txt";
+
+    private final int memoryMaxEntries;
+    private final long diskMaxBytes;
+    private final int diskMaxEntries;
+    private final Path dir;
+
+    // ordre d'accès : le premier élément est le moins récemment utilisé
+    private final LinkedHashMap<String, String> memory = new LinkedHashMap<>(256, 0.75f, true);
+    // index du niveau disque : hash -> taille du fichier (sous le verrou de l'instance)
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(1024, 0.75f, true);
+    private long diskBytes;
+    private boolean diskEnabled;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public OcrResultCache(
+            @Value("${ocr.cache.memory.max-entries:2000}") int memoryMaxEntries,
+            @Value("${ocr.cache.disk.enabled:true}") boolean diskEnabled,
+            @Value("${ocr.cache.disk.dir:cache/ocr}") String dir,
+            @Value("${ocr.cache.disk.max-bytes:268435456}") long diskMaxBytes,
+            @Value("${ocr.cache.disk.max-entries:100000}") int diskMaxEntries,
+            MeterRegistry meterRegistry
+    ) {
+        this.memoryMaxEntries = memoryMaxEntries;
+        this.diskMaxBytes = diskMaxBytes;
+        this.diskMaxEntries = diskMaxEntries;
+        this.dir = Path.of(dir);
+        this.diskEnabled = diskEnabled && loadIndex();
+
+        FunctionCounter.builder("ocr.cache.hits", memoryHits, AtomicLong::get)
+                .tag("tier", "memory")
+                .description("OCR servis depuis le cache mémoire")
+                .register(meterRegistry);
+        FunctionCounter.builder("ocr.cache.hits", diskHits, AtomicLong::get)
+                .tag("tier", "disk")
+                .description("OCR servis depuis le cache disque")
+                .register(meterRegistry);
+        FunctionCounter.builder("ocr.cache.misses", misses, AtomicLong::get)
+                .description("OCR absents du cache (appel AI)")
+                .register(meterRegistry);
+        Gauge.builder("ocr.cache.disk.size", this, OcrResultCache::diskBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Résultat en cache (mémoire puis disque), sinon loader (hors verrou) et mise en cache.
+     */
+    public String get(String sha256, Function<String, String> loader) {
+        String cached = lookupMemory(sha256);
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            return cached;
+        }
+        cached = lookupDisk(sha256);
+        if (cached != null) {
+            diskHits.incrementAndGet();
+            storeMemory(sha256, cached);
+            return cached;
+        }
+        misses.incrementAndGet();
+
+        String fresh = loader.apply(sha256);
+        if (fresh != null && !fresh.isEmpty()) {
+            storeMemory(sha256, fresh);
+            storeDisk(sha256, fresh);
+        }
+        return fresh;
+    }
+
+    public synchronized long diskBytes() {
+        return diskBytes;
+    }
+
+    public synchronized int diskEntries() {
+        return disk.size();
+    }
+
+    // ===== Mémoire =====
+
+    private synchronized String lookupMemory(String key) {
+        String text = memory.get(key);
+        // entrée chaude aussi récente côté disque : pas évincée du disque pendant qu'on la sert de la mémoire
+        if (text != null) disk.get(key);
+        return text;
+    }
+
+    private synchronized void storeMemory(String key, String text) {
+        memory.put(key, text);
+        Iterator<String> it = memory.keySet().iterator();
+        while (memory.size() > memoryMaxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    // ===== Disque =====
+
+    private String lookupDisk(String key) {
+        if (!diskEnabled || !SHA256.matcher(key).matches()) return null;
+        synchronized (this) {
+            if (disk.get(key) == null) return null; // get() : marque l'entrée comme récente
+        }
+        Path file = file(key);
+        try {
+            String text = Files.readString(file, StandardCharsets.UTF_8);
+            // date d'accès => ordre LRU retrouvé au redémarrage
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return text;
+        } catch (IOException e) {
+            forget(key);
+            return null;
+        }
+    }
+
+    private void storeDisk(String key, String text) {
+        if (!diskEnabled || !SHA256.matcher(key).matches()) return;
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > diskMaxBytes) return;
+
+        Path file = file(key);
+        Path tmp = null;
+        try {
+            Files.createDirectories(file.getParent());
+            // écriture atomique : un fichier présent est toujours complet
+            tmp = Files.createTempFile(file.getParent(), key, ".tmp");
+            Files.write(tmp, bytes);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("[OCR] Cache write failed for " + key + ": " + e.getMessage());
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                    // supprimé au prochain démarrage (loadIndex)
+                }
+            }
+            return;
+        }
+
+        List<String> victims = new ArrayList<>();
+        synchronized (this) {
+            Long previous = disk.put(key, (long) bytes.length);
+            if (previous != null) diskBytes -= previous;
+            diskBytes += bytes.length;
+
+            Iterator<Map.Entry<String, Long>> it = disk.entrySet().iterator();
+            while (it.hasNext() && (diskBytes > diskMaxBytes || disk.size() > diskMaxEntries)) {
+                Map.Entry<String, Long> eldest = it.next();
+                if (eldest.getKey().equals(key)) continue;
+                it.remove();
+                diskBytes -= eldest.getValue();
+                victims.add(eldest.getKey());
+            }
+        }
+        for (String victim : victims) delete(victim);
+    }
+
+    private synchronized void forget(String key) {
+        Long size = disk.remove(key);
+        if (size != null) diskBytes -= size;
+    }
+
+    private void delete(String key) {
+        try {
+            Files.deleteIfExists(file(key));
+        } catch (IOException e) {
+            System.out.println("[OCR] Cache eviction failed for " + key + ": " + e.getMessage());
+        }
+    }
+
+    private Path file(String key) {
+        return dir.resolve(key.substring(0, 2)).resolve(key + SUFFIX);
+    }
+
+    // index reconstruit du plus ancien au plus récent accès ; false si le répertoire est inutilisable
+    private boolean loadIndex() {
+        record Found(String key, long size, long accessed) {
+        }
+        List<Found> found = new ArrayList<>();
+        try {
+            Files.createDirectories(dir);
+            try (Stream<Path> files = Files.walk(dir, 2)) {
+                for (Path p : files.filter(Files::isRegularFile).toList()) {
+                    String name = p.getFileName().toString();
+                    if (name.endsWith(".tmp")) {
+                        Files.deleteIfExists(p); // écriture interrompue
+                        continue;
+                    }
+                    if (!name.endsWith(SUFFIX)) continue;
+                    String key = name.substring(0, name.length() - SUFFIX.length());
+                    if (!SHA256.matcher(key).matches()) continue;
+                    found.add(new Found(key, Files.size(p), Files.getLastModifiedTime(p).toMillis()));
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("[OCR] Disk cache disabled (" + dir.toAbsolutePath() + "): " + e.getMessage());
+            return false;
+        }
+
+        found.sort(Comparator.comparingLong(Found::accessed));
+        List<String> victims = new ArrayList<>();
+        synchronized (this) {
+            for (Found f : found) {
+                disk.put(f.key(), f.size());
+                diskBytes += f.size();
+            }
+            // limites abaissées depuis le dernier démarrage
+            Iterator<Map.Entry<String, Long>> it = disk.entrySet().iterator();
+            while (it.hasNext() && (diskBytes > diskMaxBytes || disk.size() > diskMaxEntries)) {
+                Map.Entry<String, Long> eldest = it.next();
+                it.remove();
+                diskBytes -= eldest.getValue();
+                victims.add(eldest.getKey());
+            }
+        }
+        for (String victim : victims) delete(victim);
+        System.out.println("[OCR] Disk cache: " + disk.size() + " results, " + diskBytes + " bytes");
+        return true;
+    }
+}
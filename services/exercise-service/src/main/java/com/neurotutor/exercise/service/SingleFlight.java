@@ -0,0 +1,66 @@
+package com.neurotutor.exercise.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Regroupe les appels identiques simultanés : le premier appelant pour une clé exécute l'appel,
+ * les suivants attendent son résultat au lieu d'en lancer un autre.
+ * Rien n'est conservé une fois l'appel terminé (ce n'est pas un cache).
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                throw e;
+            }
+        }
+
+        calls.incrementAndGet();
+        try {
+            V value = call.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Appels réellement exécutés.
+     */
+    public long calls() {
+        return calls.get();
+    }
+
+    /**
+     * Appels évités : servis par un appel identique déjà en cours.
+     */
+    public long coalesced() {
+        return coalesced.get();
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,71 @@
+package com.neurotutor.exercise.service;
+
+import com.neurotutor.exercise.dto.SubmitExerciseResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Abonnés SSE aux résultats des soumissions asynchrones : un événement "feedback"
+ * (SubmitExerciseResponse définitif) par soumission, puis fermeture du flux.
+ */
+@Component
+public class SubmissionEvents {
+
+    private static final String EVENT = "feedback";
+
+    private final long timeoutMillis;
+    private final Map<String, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    public SubmissionEvents(@Value("${submission.async.sse-timeout:60s}") Duration timeout) {
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    /**
+     * @param finished résultat déjà disponible (null si encore en attente) : lu APRÈS l'abonnement,
+     *                 pour ne pas rater une publication concurrente
+     */
+    public SseEmitter subscribe(String submissionId, Supplier<SubmitExerciseResponse> finished) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        List<SseEmitter> list = subscribers.computeIfAbsent(submissionId, k -> new CopyOnWriteArrayList<>());
+        list.add(emitter);
+        Runnable unsubscribe = () -> {
+            list.remove(emitter);
+            subscribers.computeIfPresent(submissionId, (k, v) -> v.isEmpty() ? null : v);
+        };
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+
+        SubmitExerciseResponse done = finished.get();
+        // remove() réussi = publish() n'a pas encore pris cet abonné : c'est à nous d'envoyer
+        if (done != null && list.remove(emitter)) send(emitter, done);
+        return emitter;
+    }
+
+    public void publish(String submissionId, SubmitExerciseResponse result) {
+        List<SseEmitter> list = subscribers.remove(submissionId);
+        if (list == null) return;
+        for (SseEmitter emitter : list) {
+            if (list.remove(emitter)) send(emitter, result);
+        }
+    }
+
+    private static void send(SseEmitter emitter, SubmitExerciseResponse result) {
+        try {
+            emitter.send(SseEmitter.event().name(EVENT).data(result));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // client parti entre-temps
+            emitter.completeWithError(e);
+        }
+    }
+}
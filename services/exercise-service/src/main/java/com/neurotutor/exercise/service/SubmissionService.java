@@ -1,29 +1,95 @@
 package com.neurotutor.exercise.service;
 
+import com.neurotutor.exercise.dto.CursorPage;
 import com.neurotutor.exercise.dto.SubmitExerciseRequest;
 import com.neurotutor.exercise.dto.SubmitExerciseResponse;
 import com.neurotutor.exercise.dto.ia.AiStepEvalRequest;
 import com.neurotutor.exercise.dto.ia.AiStepEvalResponse;
+import com.neurotutor.exercise.math.StepChainValidator;
 import com.neurotutor.exercise.model.Exercise;
 import com.neurotutor.exercise.model.Submission;
 import com.neurotutor.exercise.repository.SubmissionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @RequiredArgsConstructor
 public class SubmissionService {
 
+    private static final String LOCAL_STEP_HINT = "Cette étape n'est pas équivalente à l'étape précédente.";
+    private static final String AI_UNAVAILABLE_HINT = "Correction détaillée indisponible pour le moment, réessaie plus tard.";
+
     private final SubmissionRepository submissionRepository;
     private final ExerciseService exerciseService;
     private final OcrAiClient ocrAiClient;
+    private final AnswerEquivalenceService answerEquivalence;
+    private final MongoTemplate mongoTemplate;
+    private final SubmissionEvents submissionEvents;
+
+    public static final String FEEDBACK_PENDING = "PENDING";
+    public static final String FEEDBACK_DONE = "DONE";
+    public static final String FEEDBACK_UNAVAILABLE = "UNAVAILABLE";
+
+    // ✅ mode async : pool dédié à l'analyse AI des étapes (file bornée : pas d'accumulation infinie)
+    @Value("${submission.async.workers:8}")
+    private int asyncWorkers;
+    @Value("${submission.async.queue-capacity:1000}")
+    private int asyncQueueCapacity;
+
+    private ThreadPoolExecutor feedbackWorkers;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger n = new AtomicInteger();
+        feedbackWorkers = new ThreadPoolExecutor(asyncWorkers, asyncWorkers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(asyncQueueCapacity), r -> {
+            Thread t = new Thread(r, "submission-feedback-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        feedbackWorkers.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    void close() {
+        feedbackWorkers.shutdown();
+    }
 
     public SubmitExerciseResponse submit(String exerciseId, SubmitExerciseRequest req) {
+        return submit(exerciseId, req, false);
+    }
+
+    /**
+     * @param async true : réponse immédiate (correction exacte + verdicts locaux), l'analyse AI
+     *              des étapes est poussée plus tard via {@link #subscribe(String)}
+     */
+    public SubmitExerciseResponse submit(String exerciseId, SubmitExerciseRequest req, boolean async) {
         if (req == null) throw new IllegalArgumentException("Request body is required");
         if (req.getUserId() == null || req.getUserId().isBlank())
             throw new IllegalArgumentException("userId is required");
@@ -38,7 +104,7 @@ public class SubmissionService {
                 throw new IllegalArgumentException("finalAnswer (or answer) is required when steps are provided");
             }
 
-            return submitWithSteps(exerciseId, req.getUserId(), req.getSteps(), finalAns);
+            return submitWithSteps(exerciseId, req.getUserId(), req.getSteps(), finalAns, async);
         }
 
         // ✅ mode simple
@@ -77,6 +143,31 @@ public class SubmissionService {
         return submissionRepository.findByUserIdOrderBySubmittedAtDesc(userId);
     }
 
+    // ✅ historique paginé : cursor opaque = (submittedAt, id) de la dernière ligne renvoyée
+    public CursorPage<Submission> listByUserPage(String userId, String cursor, Integer limit) {
+        if (userId == null || userId.isBlank())
+            throw new IllegalArgumentException("userId is required");
+
+        int size = ExerciseService.clampPageSize(limit);
+        Pageable pageable = PageRequest.of(0, size + 1,
+                Sort.by(Sort.Order.desc("submittedAt"), Sort.Order.desc("id")));
+
+        List<Submission> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = submissionRepository.findByUserId(userId, pageable);
+        } else {
+            String[] parts = decodeCursor(cursor);
+            rows = submissionRepository.findByUserIdAfter(
+                    userId, LocalDateTime.parse(parts[0]), new ObjectId(parts[1]), pageable);
+        }
+
+        if (rows.size() <= size) return new CursorPage<>(rows, null);
+
+        List<Submission> page = rows.subList(0, size);
+        Submission last = page.get(size - 1);
+        return new CursorPage<>(page, encodeCursor(last.getSubmittedAt(), last.getId()));
+    }
+
     public List<Submission> listByUserAndExercise(String userId, String exerciseId) {
         if (userId == null || userId.isBlank())
             throw new IllegalArgumentException("userId is required");
@@ -88,10 +179,9 @@ public class SubmissionService {
     private SubmitExerciseResponse submitSimple(String exerciseId, String userId, String answer) {
         Exercise exercise = exerciseService.getExerciseByIdOrThrow(exerciseId);
 
-        String expected = safe(exercise.getSolution());
         String given = safe(answer);
 
-        boolean correct = normalize(given).equals(normalize(expected));
+        boolean correct = isCorrect(exercise, answer);
         int points = exercise.getPoints() != null ? exercise.getPoints() : 10;
         int earned = correct ? points : 0;
 
@@ -132,6 +222,16 @@ public class SubmissionService {
             String userId,
             List<String> steps,
             String finalAnswer
+    ) {
+        return submitWithSteps(exerciseId, userId, steps, finalAnswer, false);
+    }
+
+    private SubmitExerciseResponse submitWithSteps(
+            String exerciseId,
+            String userId,
+            List<String> steps,
+            String finalAnswer,
+            boolean async
     ) {
         Exercise exercise = exerciseService.getExerciseByIdOrThrow(exerciseId);
 
@@ -139,13 +239,14 @@ public class SubmissionService {
         String finalAns = safe(finalAnswer);
 
         // ✅ 1) Correct final = source of truth
-        boolean finalCorrect = normalize(finalAns).equals(normalize(expected));
+        boolean finalCorrect = isCorrect(exercise, finalAnswer);
 
         int points = exercise.getPoints() != null ? exercise.getPoints() : 10;
 
         // ✅ 2) Feedback steps
         AiStepEvalResponse aiResp = null;
         List<SubmitExerciseResponse.StepFeedback> feedbacks;
+        List<Boolean> pendingLocal = null;
 
         if (finalCorrect) {
             // ✅ IMPORTANT: si la réponse finale est correcte, on ne casse pas l'utilisateur
@@ -157,25 +258,28 @@ public class SubmissionService {
             // aiResp = ocrAiClient.evaluateSteps(new AiStepEvalRequest(exerciseId, userId, expected, steps, finalAns));
 
         } else {
-            // ✅ si final faux, on peut utiliser l'AI pour feedback
-            aiResp = ocrAiClient.evaluateSteps(
-                    new AiStepEvalRequest(exerciseId, userId, expected, steps, finalAns)
-            );
-
-            List<AiStepEvalResponse.StepFeedback> aiFeedback =
-                    (aiResp != null && aiResp.getStepsFeedback() != null)
-                            ? aiResp.getStepsFeedback()
-                            : Collections.emptyList();
-
-            feedbacks = aiFeedback.stream()
-                    .map(sf -> new SubmitExerciseResponse.StepFeedback(
-                            sf.getIndex(),
-                            sf.getStep(),
-                            sf.isCorrect(),
-                            sf.getHint(),
-                            sf.getCorrectedStep()
-                    ))
-                    .toList();
+            // ✅ si final faux : vérification locale des étapes d'abord,
+            // l'AI seulement s'il reste des étapes que le validateur ne sait pas trancher
+            List<Boolean> local = StepChainValidator.validate(problemExpression(exercise), steps);
+
+            if (!local.contains(null)) {
+                feedbacks = buildStepFeedback(steps, local, Collections.emptyList());
+            } else if (async) {
+                // ✅ verdicts locaux tout de suite, étapes indécises complétées par le worker
+                feedbacks = buildStepFeedback(steps, local, Collections.emptyList());
+                pendingLocal = local;
+            } else {
+                aiResp = ocrAiClient.evaluateSteps(
+                        new AiStepEvalRequest(exerciseId, userId, expected, steps, finalAns)
+                );
+
+                // aiResp null = AI en erreur ou coupée par le circuit : repli local, sans attendre
+                List<AiStepEvalResponse.StepFeedback> aiFeedback = aiResp == null
+                        ? null
+                        : aiResp.getStepsFeedback() != null ? aiResp.getStepsFeedback() : Collections.emptyList();
+
+                feedbacks = buildStepFeedback(steps, local, aiFeedback);
+            }
         }
 
         // ✅ 3) Score
@@ -201,8 +305,16 @@ public class SubmissionService {
                 .aiGlobalScore(aiResp != null ? aiResp.getGlobalScore() : null)
                 .build();
 
+        if (pendingLocal != null) {
+            sub.setFeedbackStatus(FEEDBACK_PENDING);
+            sub.setStepsFeedback(feedbacks);
+        }
+
         Submission saved = submissionRepository.save(sub);
 
+        // le score ne dépend jamais de l'AI (réponse finale fausse => 0) : seul le feedback est provisoire
+        if (pendingLocal != null) scheduleStepFeedback(saved, expected, pendingLocal);
+
         return SubmitExerciseResponse.builder()
                 .submissionId(saved.getId())
                 .userId(saved.getUserId())
@@ -214,6 +326,87 @@ public class SubmissionService {
                 .stepsFeedback(feedbacks)
                 .generatedSolutionSteps(aiResp != null ? aiResp.getGeneratedSolutionSteps() : null)
                 .aiGlobalScore(aiResp != null ? aiResp.getGlobalScore() : null)
+                .feedbackStatus(saved.getFeedbackStatus())
+                .build();
+    }
+
+    /**
+     * Flux SSE du résultat définitif d'une soumission async (envoyé aussitôt s'il est déjà prêt).
+     */
+    public SseEmitter subscribe(String submissionId) {
+        if (submissionId == null || submissionId.isBlank())
+            throw new IllegalArgumentException("submissionId is required");
+        if (!submissionRepository.existsById(submissionId))
+            throw new IllegalArgumentException("Submission not found: " + submissionId);
+
+        return submissionEvents.subscribe(submissionId, () -> submissionRepository.findById(submissionId)
+                .filter(s -> !FEEDBACK_PENDING.equals(s.getFeedbackStatus()))
+                .map(this::toResponse)
+                .orElse(null));
+    }
+
+    private void scheduleStepFeedback(Submission saved, String expected, List<Boolean> local) {
+        try {
+            feedbackWorkers.execute(() -> completeStepFeedback(saved, expected, local));
+        } catch (RejectedExecutionException e) {
+            // file pleine : pas d'AI pour cette soumission, mais le client reçoit quand même un résultat
+            System.out.println("[Submission] Feedback queue full, skipping AI for " + saved.getId());
+            finishStepFeedback(saved, local, null);
+        }
+    }
+
+    private void completeStepFeedback(Submission saved, String expected, List<Boolean> local) {
+        AiStepEvalResponse aiResp = null;
+        try {
+            aiResp = ocrAiClient.evaluateSteps(new AiStepEvalRequest(
+                    saved.getExerciseId(), saved.getUserId(), expected, saved.getSteps(), saved.getFinalAnswer()));
+        } catch (RuntimeException e) {
+            System.out.println("[Submission] Async AI feedback failed for " + saved.getId() + ": " + e.getMessage());
+        }
+        finishStepFeedback(saved, local, aiResp);
+    }
+
+    // patch du document (champs AI seulement) puis publication SSE, dans cet ordre (cf. SubmissionEvents)
+    private void finishStepFeedback(Submission saved, List<Boolean> local, AiStepEvalResponse aiResp) {
+        List<AiStepEvalResponse.StepFeedback> aiFeedback = aiResp == null
+                ? null
+                : aiResp.getStepsFeedback() != null ? aiResp.getStepsFeedback() : Collections.emptyList();
+
+        saved.setStepsFeedback(buildStepFeedback(saved.getSteps(), local, aiFeedback));
+        saved.setGeneratedSolutionSteps(aiResp != null ? aiResp.getGeneratedSolutionSteps() : null);
+        saved.setAiGlobalScore(aiResp != null ? aiResp.getGlobalScore() : null);
+        saved.setFeedbackStatus(aiResp != null ? FEEDBACK_DONE : FEEDBACK_UNAVAILABLE);
+
+        try {
+            mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(saved.getId())),
+                    new Update()
+                            .set("stepsFeedback", saved.getStepsFeedback())
+                            .set("generatedSolutionSteps", saved.getGeneratedSolutionSteps())
+                            .set("aiGlobalScore", saved.getAiGlobalScore())
+                            .set("feedbackStatus", saved.getFeedbackStatus()),
+                    Submission.class);
+        } catch (RuntimeException e) {
+            System.out.println("[Submission] Could not patch feedback of " + saved.getId() + ": " + e.getMessage());
+        }
+        submissionEvents.publish(saved.getId(), toResponse(saved));
+    }
+
+    private SubmitExerciseResponse toResponse(Submission s) {
+        return SubmitExerciseResponse.builder()
+                .submissionId(s.getId())
+                .userId(s.getUserId())
+                .exerciseId(s.getExerciseId())
+                .answer(s.getAnswer())
+                .correct(s.isCorrect())
+                .scoreEarned(s.getScoreEarned())
+                .submittedAt(s.getSubmittedAt())
+                .imageUrl(s.getImageUrl())
+                .audioUrl(s.getAudioUrl())
+                .stepsFeedback(s.getStepsFeedback())
+                .generatedSolutionSteps(s.getGeneratedSolutionSteps())
+                .aiGlobalScore(s.getAiGlobalScore())
+                .feedbackStatus(s.getFeedbackStatus())
                 .build();
     }
 
@@ -233,22 +426,95 @@ public class SubmissionService {
                 .toList();
     }
 
+    // verdict local quand il existe, sinon celui de l'AI (étape absente de la réponse AI : omise ;
+    // aiFeedback null = AI indisponible : l'étape est renvoyée sans verdict, correct = null)
+    private List<SubmitExerciseResponse.StepFeedback> buildStepFeedback(
+            List<String> steps,
+            List<Boolean> local,
+            List<AiStepEvalResponse.StepFeedback> aiFeedback
+    ) {
+        List<SubmitExerciseResponse.StepFeedback> out = new ArrayList<>();
+        for (int i = 0; i < steps.size(); i++) {
+            Boolean ok = local.get(i);
+            if (ok != null) {
+                out.add(new SubmitExerciseResponse.StepFeedback(
+                        i,
+                        steps.get(i),
+                        ok,
+                        ok ? null : LOCAL_STEP_HINT,
+                        null
+                ));
+                continue;
+            }
+            if (aiFeedback == null) {
+                out.add(new SubmitExerciseResponse.StepFeedback(i, steps.get(i), null, AI_UNAVAILABLE_HINT, null));
+                continue;
+            }
+            final int index = i;
+            aiFeedback.stream()
+                    .filter(sf -> sf.getIndex() == index)
+                    .findFirst()
+                    .ifPresent(sf -> out.add(new SubmitExerciseResponse.StepFeedback(
+                            sf.getIndex(),
+                            sf.getStep(),
+                            sf.isCorrect(),
+                            sf.getHint(),
+                            sf.getCorrectedStep()
+                    )));
+        }
+        return out;
+    }
+
+    // "Resoudre : 2x = 10" -> "2x = 10" (point de départ de la chaîne d'étapes)
+    private String problemExpression(Exercise exercise) {
+        String statement = exercise.getProblemStatement();
+        if (statement == null) return null;
+        int colon = statement.lastIndexOf(':');
+        return colon >= 0 ? statement.substring(colon + 1).trim() : statement.trim();
+    }
+
     private int computeStepsBonus(int points, List<SubmitExerciseResponse.StepFeedback> feedbacks) {
         if (feedbacks == null || feedbacks.isEmpty()) return 0;
 
         long correctCount = feedbacks.stream()
-                .filter(SubmitExerciseResponse.StepFeedback::isCorrect)
+                .filter(sf -> Boolean.TRUE.equals(sf.getCorrect()))
                 .count();
 
         double ratio = (double) correctCount / (double) feedbacks.size();
         return (int) Math.round(points * 0.3 * ratio);
     }
 
-    private String safe(String s) {
-        return s == null ? "" : s.trim();
+    private String encodeCursor(LocalDateTime submittedAt, String id) {
+        String raw = submittedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
     }
 
-    private String normalize(String s) {
-        return s == null ? "" : s.replace(" ", "").toLowerCase();
+    private String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 2);
+            if (parts.length != 2 || !ObjectId.isValid(parts[1])) throw new IllegalArgumentException();
+            LocalDateTime.parse(parts[0]);
+            return parts;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    // comparaison exacte d'abord (une passe), puis équivalence symbolique : l'AI n'est plus
+    // sollicitée pour "5=x" ou "x=10/2" quand la solution est "x=5"
+    private boolean isCorrect(Exercise exercise, String answer) {
+        return AnswerMatcher.matches(answer, canonicalSolution(exercise))
+                || answerEquivalence.isEquivalent(exercise, answer);
+    }
+
+    // forme calculée à l'écriture ; repli pour les exercices pas encore migrés
+    private String canonicalSolution(Exercise exercise) {
+        String canonical = exercise.getNormalizedSolution();
+        return canonical != null ? canonical : AnswerMatcher.canonical(exercise.getSolution());
+    }
+
+    private String safe(String s) {
+        return s == null ? "" : s.trim();
     }
 }
@@ -0,0 +1,81 @@
+package com.neurotutor.exercise.config;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadlineRequestFactoryTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private CloseableHttpClient httpClient;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/echo", exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        httpClient = HttpClients.createDefault();
+    }
+
+    @AfterEach
+    void stopStub() throws Exception {
+        httpClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    void completedRequestsReleaseTheirDeadline() {
+        RestTemplate buffered = new RestTemplate(new RestTemplateConfig.DeadlineRequestFactory(httpClient, Duration.ofMinutes(5)));
+        RestTemplateConfig.DeadlineRequestFactory streamingFactory =
+                new RestTemplateConfig.DeadlineRequestFactory(httpClient, Duration.ofMinutes(5));
+        streamingFactory.setBufferRequestBody(false);
+        RestTemplate streaming = new RestTemplate(streamingFactory);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals("x=" + i, buffered.postForObject(baseUrl + "/echo", "x=" + i, String.class));
+            byte[] upload = ("img" + i).getBytes(StandardCharsets.UTF_8);
+            assertArrayEquals(upload, streaming.postForObject(baseUrl + "/echo", new ByteArrayResource(upload), byte[].class));
+        }
+        assertEquals(0, RestTemplateConfig.DeadlineRequestFactory.pendingDeadlines());
+    }
+
+    @Test
+    void requestIsAbortedAtTheDeadline() {
+        RestTemplate client = new RestTemplate(new RestTemplateConfig.DeadlineRequestFactory(httpClient, Duration.ofMillis(200)));
+
+        long start = System.nanoTime();
+        assertThrows(ResourceAccessException.class, () -> client.getForObject(baseUrl + "/slow", String.class));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1500);
+        assertEquals(0, RestTemplateConfig.DeadlineRequestFactory.pendingDeadlines());
+    }
+}
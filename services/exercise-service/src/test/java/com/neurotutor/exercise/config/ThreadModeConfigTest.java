@@ -0,0 +1,59 @@
+package com.neurotutor.exercise.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.coyote.ProtocolHandler;
+import org.apache.coyote.http11.Http11NioProtocol;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ThreadModeConfigTest {
+
+    private final ThreadModeConfig config = new ThreadModeConfig();
+    private final Http11NioProtocol handler = new Http11NioProtocol();
+
+    @AfterEach
+    void close() {
+        config.close();
+        if (handler.getExecutor() instanceof ExecutorService executor) executor.shutdownNow();
+    }
+
+    private void customize() {
+        ReflectionTestUtils.setField(config, "pinnedThreshold", Duration.ofMillis(20));
+        TomcatProtocolHandlerCustomizer<ProtocolHandler> customizer = config.virtualThreadExecutor(new SimpleMeterRegistry());
+        customizer.customize(handler);
+    }
+
+    @Test
+    void installsVirtualThreadExecutorOnJava21() throws Exception {
+        assumeTrue(VirtualThreads.supported(), "virtual threads need a Java 21+ runtime");
+        customize();
+
+        Executor executor = handler.getExecutor();
+        assertInstanceOf(ExecutorService.class, executor);
+        Future<Boolean> virtual = ((ExecutorService) executor).submit(
+                () -> (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()));
+        assertTrue(virtual.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void keepsPlatformPoolBeforeJava21() {
+        assumeFalse(VirtualThreads.supported(), "runtime supports virtual threads");
+        Executor before = handler.getExecutor();
+        customize();
+
+        assertSame(before, handler.getExecutor());
+        assertFalse(VirtualThreads.perTaskExecutor().isPresent());
+    }
+}
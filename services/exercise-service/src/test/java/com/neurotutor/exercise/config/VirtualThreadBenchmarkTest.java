@@ -0,0 +1,116 @@
+package com.neurotutor.exercise.config;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Soumissions concurrentes qui attendent chacune un appel HTTP bloquant (ai-service simulé, 50 ms) :
+ * pool de plateforme de la taille du pool Tomcat par défaut (200) contre un thread virtuel par requête.
+ * Avec 1000 soumissions simultanées, le pool de 200 traite 5 vagues successives ; les threads
+ * virtuels les traitent toutes en parallèle. La partie virtuelle est ignorée avant Java 21.
+ * Mesure seule (temps affichés, pas de ratio imposé) : hors du build normal, mvn test -Pbenchmark.
+ */
+@Tag("benchmark")
+class VirtualThreadBenchmarkTest {
+
+    private static final int SUBMISSIONS = 1000;
+    private static final int PLATFORM_POOL = 200;
+    private static final long AI_LATENCY_MS = 50;
+
+    private static HttpServer server;
+    private static ExecutorService serverThreads;
+    private static String url;
+
+    @BeforeAll
+    static void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), SUBMISSIONS);
+        server.createContext("/evaluation/evaluate-steps", exchange -> {
+            try {
+                Thread.sleep(AI_LATENCY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"globalScore\":0.5}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        serverThreads = VirtualThreads.perTaskExecutor().orElseGet(Executors::newCachedThreadPool);
+        server.setExecutor(serverThreads);
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/evaluation/evaluate-steps";
+    }
+
+    @AfterAll
+    static void stopStub() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void virtualThreadsScalePastPlatformPool() throws Exception {
+        ExecutorService platform = Executors.newFixedThreadPool(PLATFORM_POOL);
+        long platformMs;
+        try {
+            run(platform); // chauffe
+            platformMs = run(platform);
+        } finally {
+            platform.shutdownNow();
+        }
+        System.out.println("[Bench] " + SUBMISSIONS + " submissions, platform pool of " + PLATFORM_POOL + ": " + platformMs + "ms");
+
+        assumeTrue(VirtualThreads.supported(), "virtual threads need a Java 21+ runtime");
+        ExecutorService virtual = VirtualThreads.perTaskExecutor().orElseThrow();
+        long virtualMs;
+        try {
+            run(virtual);
+            virtualMs = run(virtual);
+        } finally {
+            virtual.shutdownNow();
+        }
+        System.out.println("[Bench] " + SUBMISSIONS + " submissions, virtual threads: " + virtualMs + "ms");
+
+        // borne basse du pool : SUBMISSIONS / PLATFORM_POOL vagues de AI_LATENCY_MS
+        assertTrue(platformMs >= (SUBMISSIONS / PLATFORM_POOL) * AI_LATENCY_MS);
+        System.out.printf("[Bench] virtual threads %.1fx faster%n", (double) platformMs / Math.max(1, virtualMs));
+    }
+
+    private static long run(ExecutorService executor) throws Exception {
+        long start = System.nanoTime();
+        List<Future<Integer>> calls = new ArrayList<>(SUBMISSIONS);
+        for (int i = 0; i < SUBMISSIONS; i++) calls.add(executor.submit(VirtualThreadBenchmarkTest::blockingCall));
+        for (Future<Integer> f : calls) assertEquals(200, f.get());
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static int blockingCall() throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        conn.setRequestMethod("POST");
+        conn.setDoOutput(true);
+        conn.getOutputStream().write("{}".getBytes(StandardCharsets.UTF_8));
+        int status = conn.getResponseCode();
+        try (InputStream in = conn.getInputStream()) {
+            in.readAllBytes();
+        }
+        return status;
+    }
+}
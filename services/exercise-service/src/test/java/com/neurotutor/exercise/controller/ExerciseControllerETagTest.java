@@ -0,0 +1,99 @@
+package com.neurotutor.exercise.controller;
+
+import com.neurotutor.exercise.model.Exercise;
+import com.neurotutor.exercise.repository.ExerciseRepository;
+import com.neurotutor.exercise.service.AnswerEquivalenceService;
+import com.neurotutor.exercise.service.ExerciseCatalog;
+import com.neurotutor.exercise.service.ExerciseService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ExerciseControllerETagTest {
+
+    private final List<Exercise> stored = new ArrayList<>();
+    private ExerciseRepository repository;
+    private ExerciseCatalog catalog;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ExerciseRepository.class);
+        when(repository.findAll()).thenAnswer(inv -> new ArrayList<>(stored));
+        catalog = new ExerciseCatalog(repository, new SimpleMeterRegistry());
+        ExerciseService service = new ExerciseService(repository, catalog, new AnswerEquivalenceService(100), null);
+        mvc = MockMvcBuilders.standaloneSetup(new ExerciseController(service)).build();
+
+        stored.add(exercise("e1", "Fractions", LocalDateTime.of(2026, 3, 1, 10, 0)));
+        stored.add(exercise("e2", "Pourcentages", null));
+    }
+
+    private static Exercise exercise(String id, String title, LocalDateTime updatedAt) {
+        return Exercise.builder().id(id).title(title).difficulty("BEGINNER").updatedAt(updatedAt).build();
+    }
+
+    private String listETag() throws Exception {
+        return mvc.perform(get("/api/v1/exercises"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andExpect(jsonPath("$.Count").value(2))
+                .andReturn().getResponse().getHeader("ETag");
+    }
+
+    @Test
+    void matchingIfNoneMatchReturns304WithoutBody() throws Exception {
+        String etag = listETag();
+
+        for (String path : List.of("/api/v1/exercises", "/api/v1/exercises?limit=1",
+                "/api/v1/exercises/search?q=fractions", "/api/v1/exercises/facets?all=difficulty:BEGINNER")) {
+            mvc.perform(get(path).header("If-None-Match", etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string("ETag", etag))
+                    .andExpect(content().string(""));
+        }
+        // le catalogue n'est relu qu'une fois
+        verify(repository, times(1)).findAll();
+    }
+
+    @Test
+    void catalogWriteChangesTheETag() throws Exception {
+        String before = listETag();
+
+        catalog.put(exercise("e1", "Fractions simples", LocalDateTime.of(2026, 3, 2, 10, 0)));
+
+        mvc.perform(get("/api/v1/exercises").header("If-None-Match", before))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.value[0].title").value("Fractions simples"));
+        assertNotEquals(before, listETag());
+    }
+
+    @Test
+    void exerciseETagFollowsUpdatedAt() throws Exception {
+        String etag = mvc.perform(get("/api/v1/exercises/e1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mvc.perform(get("/api/v1/exercises/e1").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        mvc.perform(get("/api/v1/exercises/e1").header("If-None-Match", "\"e1-stale\""))
+                .andExpect(status().isOk());
+
+        // pas de updatedAt : pas d'ETag, toujours 200
+        mvc.perform(get("/api/v1/exercises/e2").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"));
+        mvc.perform(get("/api/v1/exercises/missing")).andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,91 @@
+package com.neurotutor.exercise.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neurotutor.exercise.model.Exercise;
+import com.neurotutor.exercise.repository.ExerciseRepository;
+import com.neurotutor.exercise.service.AnswerEquivalenceService;
+import com.neurotutor.exercise.service.ExerciseCatalog;
+import com.neurotutor.exercise.service.ExerciseService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ExerciseControllerResponseTest {
+
+    private static final Set<String> LIST_FIELDS = Set.of("id", "title", "description", "difficulty",
+            "topics", "tags", "statementExcerpt", "points", "estimatedTime");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        ExerciseRepository repository = mock(ExerciseRepository.class);
+        when(repository.findAll()).thenReturn(List.of(Exercise.builder()
+                .id("e1")
+                .title("Équation du premier degré")
+                .description("Isoler x")
+                .problemStatement("Résoudre   2x + 3 = 7")
+                .difficulty("BEGINNER")
+                .topics(List.of("algebre"))
+                .tags(List.of("equation"))
+                .solution("x=2")
+                .normalizedSolution("x=2")
+                .hints(List.of("Soustraire 3"))
+                .steps(List.of("2x = 4", "x = 2"))
+                .points(10)
+                .estimatedTime(5)
+                .contentHash("abc")
+                .build()));
+        ExerciseCatalog catalog = new ExerciseCatalog(repository, new SimpleMeterRegistry());
+        ExerciseService service = new ExerciseService(repository, catalog, new AnswerEquivalenceService(100), null);
+        mvc = MockMvcBuilders.standaloneSetup(new ExerciseController(service)).build();
+    }
+
+    private JsonNode getJson(String path) throws Exception {
+        String body = mvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        return mapper.readTree(body);
+    }
+
+    private static Set<String> fieldNames(JsonNode node) {
+        Set<String> fields = new TreeSet<>();
+        node.fieldNames().forEachRemaining(fields::add);
+        return fields;
+    }
+
+    @Test
+    void listReturnsExactlyTheCardFields() throws Exception {
+        for (String path : List.of("/api/v1/exercises", "/api/v1/exercises?limit=10")) {
+            JsonNode item = getJson(path).get("value").get(0);
+
+            assertEquals(LIST_FIELDS, fieldNames(item), path);
+            assertEquals("equation", item.get("tags").get(0).asText());
+            assertEquals("Résoudre 2x + 3 = 7", item.get("statementExcerpt").asText());
+        }
+    }
+
+    @Test
+    void detailNeverExposesDerivedFields() throws Exception {
+        JsonNode exercise = getJson("/api/v1/exercises/e1");
+
+        assertEquals("Équation du premier degré", exercise.get("title").asText());
+        assertFalse(exercise.has("normalizedSolution"));
+        assertFalse(exercise.has("contentHash"));
+    }
+}
@@ -0,0 +1,82 @@
+package com.neurotutor.exercise.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neurotutor.exercise.model.Exercise;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExerciseSummaryDtoTest {
+
+    private static Exercise fullExercise() {
+        return Exercise.builder()
+                .id("e1")
+                .title("Équation du premier degré")
+                .description("Isoler x")
+                .problemStatement("Résoudre 2x + 3 = 7")
+                .difficulty("BEGINNER")
+                .topics(List.of("algebre"))
+                .tags(List.of("equation"))
+                .solution("x=2")
+                .normalizedSolution("x=2")
+                .hints(List.of("Soustraire 3"))
+                .steps(List.of("2x = 4", "x = 2"))
+                .explanationText("On isole x")
+                .estimatedTime(5)
+                .points(10)
+                .contentHash("abc")
+                .build();
+    }
+
+    @Test
+    void copiesCardFields() {
+        ExerciseSummaryDto dto = ExerciseSummaryDto.from(fullExercise());
+
+        assertEquals("e1", dto.getId());
+        assertEquals("Équation du premier degré", dto.getTitle());
+        assertEquals("Isoler x", dto.getDescription());
+        assertEquals("BEGINNER", dto.getDifficulty());
+        assertEquals(List.of("algebre"), dto.getTopics());
+        assertEquals(List.of("equation"), dto.getTags());
+        assertEquals("Résoudre 2x + 3 = 7", dto.getStatementExcerpt());
+        assertEquals(10, dto.getPoints());
+        assertEquals(5, dto.getEstimatedTime());
+    }
+
+    @Test
+    void jsonNeverExposesSolutionStepsOrHints() throws Exception {
+        JsonNode json = new ObjectMapper().valueToTree(ExerciseSummaryDto.from(fullExercise()));
+
+        Set<String> fields = new TreeSet<>();
+        json.fieldNames().forEachRemaining(fields::add);
+        assertEquals(Set.of("id", "title", "description", "difficulty", "topics", "tags",
+                "statementExcerpt", "points", "estimatedTime"), fields);
+    }
+
+    @Test
+    void missingOptionalFieldsStayNull() {
+        ExerciseSummaryDto dto = ExerciseSummaryDto.from(Exercise.builder().id("e2").title("Sans détails").build());
+
+        assertEquals("e2", dto.getId());
+        assertNull(dto.getTopics());
+        assertNull(dto.getStatementExcerpt());
+        assertNull(dto.getPoints());
+        assertNull(dto.getEstimatedTime());
+    }
+
+    @Test
+    void longStatementsAreCutToAnExcerpt() {
+        String statement = "Résoudre l'équation suivante.\n\n" + "x + 1 = 2 ; ".repeat(40);
+
+        String excerpt = ExerciseSummaryDto.excerpt(statement);
+
+        assertTrue(excerpt.startsWith("Résoudre l'équation suivante. x + 1 = 2"));
+        assertTrue(excerpt.endsWith("…"));
+        assertTrue(excerpt.length() <= ExerciseSummaryDto.EXCERPT_LENGTH + 1);
+    }
+}
@@ -0,0 +1,90 @@
+package com.neurotutor.exercise.math;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnswerEquivalenceTest {
+
+    @Test
+    void solvedEquationAcceptsEquivalentWritings() {
+        AnswerEquivalence x5 = AnswerEquivalence.compile("x=5");
+
+        assertTrue(x5.matches("5=x"));
+        assertTrue(x5.matches("x=10/2"));
+        assertTrue(x5.matches("x=5.0"));
+        assertTrue(x5.matches("x = 5,0"));
+        assertTrue(x5.matches("5"));
+
+        assertFalse(x5.matches("x=6"));
+        assertFalse(x5.matches("y=5"));
+        assertFalse(x5.matches("x=2+3"));
+        assertFalse(x5.matches("2x=10"));
+    }
+
+    @Test
+    void numbersMustBeWrittenSimply() {
+        AnswerEquivalence eleven = AnswerEquivalence.compile("11");
+
+        assertTrue(eleven.matches("11.0"));
+        assertTrue(eleven.matches("22/2"));
+        assertFalse(eleven.matches("3+4×2"));
+        assertFalse(eleven.matches("12"));
+    }
+
+    @Test
+    void factoredFormComparesFactors() {
+        AnswerEquivalence f = AnswerEquivalence.compile("(x-3)(x+3)");
+
+        assertTrue(f.matches("(x+3)(x-3)"));
+        assertTrue(f.matches("(3+x)*(x-3)"));
+        assertTrue(f.matches("(3-x)(-x-3)"));
+        assertFalse(f.matches("x²-9"));
+        assertFalse(f.matches("(x-3)(x-3)"));
+
+        assertTrue(AnswerEquivalence.compile("2(x-1)").matches("(x-1)*2"));
+        assertFalse(AnswerEquivalence.compile("2(x-1)").matches("2x-2"));
+        assertTrue(AnswerEquivalence.compile("(x+1)^2").matches("(x+1)(1+x)"));
+    }
+
+    @Test
+    void expandedFormRequiresExpandedAnswer() {
+        AnswerEquivalence e = AnswerEquivalence.compile("x^2+5x+6");
+
+        assertTrue(e.matches("6 + 5x + x²"));
+        assertTrue(e.matches("x*x + 2x + 3x + 6"));
+        assertFalse(e.matches("(x+2)(x+3)"));
+        assertFalse(e.matches("x^2+5x+7"));
+    }
+
+    @Test
+    void generalEquationsAreComparedUpToAFactor() {
+        AnswerEquivalence line = AnswerEquivalence.compile("2x + 3y = 6");
+
+        assertTrue(line.matches("4x + 6y - 12 = 0"));
+        assertTrue(line.matches("6 = 3y + 2x"));
+        assertFalse(line.matches("2x + 3y = 7"));
+    }
+
+    @Test
+    void multiplePartsMatchInAnyOrder() {
+        AnswerEquivalence roots = AnswerEquivalence.compile("x=3 ou x=-3");
+
+        assertTrue(roots.matches("x=-3; x=3"));
+        assertFalse(roots.matches("x=3"));
+
+        assertTrue(AnswerEquivalence.compile("x=2, y=1").matches("y=1 et x=4/2"));
+    }
+
+    @Test
+    void unsupportedInputIsNeverEquivalent() {
+        assertThrows(IllegalArgumentException.class, () -> AnswerEquivalence.compile("Paris"));
+
+        AnswerEquivalence x5 = AnswerEquivalence.compile("x=5");
+        assertFalse(x5.matches("x=5/0"));
+        assertFalse(x5.matches("x=sqrt(25)"));
+        assertFalse(x5.matches("(x+1)^1000"));
+    }
+}
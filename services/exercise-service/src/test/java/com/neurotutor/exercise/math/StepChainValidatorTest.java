@@ -0,0 +1,79 @@
+package com.neurotutor.exercise.math;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StepChainValidatorTest {
+
+    @Test
+    void linearEquationSteps() {
+        assertEquals(List.of(true, true, true),
+                StepChainValidator.validate("2x = 10", List.of("2x/2 = 10/2", "x = 10/2", "donc x = 5")));
+
+        assertEquals(List.of(true, false, true),
+                StepChainValidator.validate("x + 7 = 12", List.of("x = 12 - 7", "x = 19", "x - 19 = 0")));
+    }
+
+    @Test
+    void calculationSteps() {
+        assertEquals(List.of(true, true),
+                StepChainValidator.validate("3 + 2 * 5", List.of("3 + 10", "= 13")));
+
+        assertEquals(List.of(false, true),
+                StepChainValidator.validate("3 + 2 * 5", List.of("5 * 5", "25")));
+
+        // calcul numérique vérifiable sans énoncé de départ
+        assertEquals(List.of(true, false),
+                StepChainValidator.validate(null, List.of("8 * 5 = 40", "2 * (8 + 5) = 28")));
+        assertEquals(List.of(true),
+                StepChainValidator.validate(null, List.of("1/2 + 1/4 = 2/4 + 1/4 = 3/4")));
+    }
+
+    @Test
+    void factorisationAndRoots() {
+        assertEquals(List.of(true, true, true),
+                StepChainValidator.validate("x^2 - 9 = 0", List.of("(x-3)(x+3) = 0", "x - 3 = 0 ou x + 3 = 0", "x = 3 ou x = -3")));
+
+        assertEquals(List.of(false),
+                StepChainValidator.validate("x^2 - 9 = 0", List.of("x = 3")));
+
+        assertEquals(List.of(true, false),
+                StepChainValidator.validate("x^2 + 5x + 6", List.of("(x+2)(x+3)", "(x+2)(x+4)")));
+    }
+
+    @Test
+    void equivalentButNotProportionalEquations() {
+        // mêmes solutions réelles sans zéros proportionnels : jamais FALSE
+        assertEquals(List.of(true, true, true),
+                StepChainValidator.validate("x^2 - 2x + 1 = 0", List.of("(x-1)^2 = 0", "x - 1 = 0", "x = 1")));
+        assertEquals(List.of(true),
+                StepChainValidator.validate("x^3 = 8", List.of("x = 2")));
+
+        assertEquals(List.of(false),
+                StepChainValidator.validate("x^3 = 8", List.of("x = 3")));
+        assertEquals(List.of(false),
+                StepChainValidator.validate("2x + 1 = 7", List.of("2x = 8")));
+    }
+
+    @Test
+    void undecidableStepsAreLeftToTheAi() {
+        assertEquals(Arrays.asList(null, null, true),
+                StepChainValidator.validate("2x = 10", List.of("on divise par 2", "x=5", "x = 10/2")));
+
+        // système à deux inconnues, inconnue au dénominateur
+        assertEquals(Arrays.asList((Boolean) null),
+                StepChainValidator.validate("x + y = 3", List.of("x = 1, y = 2")));
+        assertEquals(Arrays.asList((Boolean) null),
+                StepChainValidator.validate("1/x = 2", List.of("x = 1/2")));
+
+        // non proportionnelles, aucune du premier degré : à l'AI plutôt qu'un faux négatif
+        assertEquals(Arrays.asList((Boolean) null),
+                StepChainValidator.validate("x^2 = 1", List.of("x^4 = 1")));
+        assertEquals(Arrays.asList((Boolean) null),
+                StepChainValidator.validate("x + y = 3", List.of("2x + y = 3")));
+    }
+}
@@ -0,0 +1,160 @@
+package com.neurotutor.exercise.repository;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.neurotutor.exercise.config.MongoIndexConfig;
+import com.neurotutor.exercise.model.Exercise;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Rejoue chaque requête des repositories avec explain() et échoue si le plan gagnant
+ * contient un COLLSCAN. Nécessite un Mongo (MONGO_TEST_URI, défaut localhost:27017) :
+ * hors du build par défaut, mvn test -Pmongo ; échoue si Mongo n'est pas joignable.
+ */
+@Tag("mongo")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RepositoryQueryPlanTest {
+
+    private final List<Document> captured = new CopyOnWriteArrayList<>();
+
+    private MongoClient client;
+    private MongoTemplate template;
+    private String dbName;
+
+    private ExerciseRepository exerciseRepository;
+    private SubmissionRepository submissionRepository;
+
+    @BeforeAll
+    void connect() {
+        String uri = System.getenv().getOrDefault("MONGO_TEST_URI", "mongodb://localhost:27017");
+
+        CommandListener listener = new CommandListener() {
+            @Override
+            public void commandStarted(CommandStartedEvent event) {
+                if ("find".equals(event.getCommandName())) {
+                    captured.add(Document.parse(event.getCommand().toJson()));
+                }
+            }
+        };
+
+        client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri))
+                .applyToClusterSettings(b -> b.serverSelectionTimeout(1, TimeUnit.SECONDS))
+                .addCommandListener(listener)
+                .build());
+        try {
+            client.getDatabase("admin").runCommand(new Document("ping", 1));
+        } catch (Exception e) {
+            client.close();
+            client = null;
+            fail("MongoDB not reachable at " + uri + " (set MONGO_TEST_URI): " + e.getMessage());
+        }
+
+        dbName = "queryplan_" + new ObjectId().toHexString();
+        template = new MongoTemplate(client, dbName);
+        MongoIndexConfig.ensureIndexes(template);
+
+        MongoRepositoryFactory factory = new MongoRepositoryFactory(template);
+        exerciseRepository = factory.getRepository(ExerciseRepository.class);
+        submissionRepository = factory.getRepository(SubmissionRepository.class);
+    }
+
+    @AfterAll
+    void dropDatabase() {
+        if (client == null) return;
+        client.getDatabase(dbName).drop();
+        client.close();
+    }
+
+    @BeforeEach
+    void clearCaptured() {
+        captured.clear();
+    }
+
+    @Test
+    void exerciseRepositoryQueriesUseIndexes() {
+        exerciseRepository.findByDifficulty("BEGINNER");
+        exerciseRepository.findByTopicsContaining("Algebre");
+        exerciseRepository.findByDifficultyAndTopicsContaining("BEGINNER", "Algebre");
+        // filtre des upserts de l'import NDJSON
+        template.find(Query.query(Criteria.where("contentHash").is("abc")), Exercise.class);
+        exerciseRepository.findById(new ObjectId().toHexString());
+
+        assertNoCollectionScan();
+    }
+
+    @Test
+    void submissionRepositoryQueriesUseIndexes() {
+        String userId = "u1";
+        PageRequest page = PageRequest.of(0, 21, Sort.by(Sort.Order.desc("submittedAt"), Sort.Order.desc("id")));
+
+        submissionRepository.findByUserIdOrderBySubmittedAtDesc(userId);
+        submissionRepository.findByUserIdAndExerciseId(userId, "e1");
+        submissionRepository.findByUserId(userId, page);
+        submissionRepository.findByUserIdAfter(userId, LocalDateTime.now(), new ObjectId(), page);
+
+        assertNoCollectionScan();
+    }
+
+    private void assertNoCollectionScan() {
+        assertTrue(captured.size() > 0, "no find command captured");
+
+        List<String> scans = new ArrayList<>();
+        for (Document find : new ArrayList<>(captured)) {
+            Document cmd = new Document(find);
+            cmd.remove("$db");
+            cmd.remove("lsid");
+            cmd.remove("$clusterTime");
+            cmd.remove("$readPreference");
+
+            Document explain = client.getDatabase(dbName)
+                    .runCommand(new Document("explain", cmd).append("verbosity", "queryPlanner"));
+            Document plan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+
+            if (containsStage(plan, "COLLSCAN")) {
+                scans.add(cmd.toJson() + " -> " + plan.toJson());
+            }
+        }
+        assertTrue(scans.isEmpty(), "COLLSCAN in winning plan:\n" + String.join("\n", scans));
+    }
+
+    private boolean containsStage(Object node, String stage) {
+        if (node instanceof Document doc) {
+            if (stage.equals(doc.get("stage"))) return true;
+            for (Object child : doc.values()) {
+                if (containsStage(child, stage)) return true;
+            }
+        } else if (node instanceof List<?> list) {
+            for (Object child : list) {
+                if (containsStage(child, stage)) return true;
+            }
+        }
+        return false;
+    }
+}
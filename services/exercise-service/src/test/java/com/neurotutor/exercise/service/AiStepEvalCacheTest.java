@@ -0,0 +1,69 @@
+package com.neurotutor.exercise.service;
+
+import com.neurotutor.exercise.dto.ia.AiStepEvalRequest;
+import com.neurotutor.exercise.dto.ia.AiStepEvalResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AiStepEvalCacheTest {
+
+    private final AiStepEvalCache cache = new AiStepEvalCache(100, 1 << 20, Duration.ofMinutes(5), new SimpleMeterRegistry());
+
+    private static AiStepEvalResponse evaluate(AiStepEvalRequest req) {
+        List<AiStepEvalResponse.StepFeedback> feedback = List.of(
+                new AiStepEvalResponse.StepFeedback(0, req.getSteps().get(0), true, null, null),
+                new AiStepEvalResponse.StepFeedback(1, req.getSteps().get(1), false, "Divise par 2", "x = 5"));
+        return new AiStepEvalResponse(0.5, feedback, List.of("2x = 10", "x = 5"), "x = 5");
+    }
+
+    @Test
+    void hitReturnsFeedbackWithTheRequestersOwnSteps() {
+        AtomicInteger calls = new AtomicInteger();
+        Function<AiStepEvalRequest, AiStepEvalResponse> ai = r -> {
+            calls.incrementAndGet();
+            return evaluate(r);
+        };
+
+        AiStepEvalRequest alice = new AiStepEvalRequest("ex1", "alice", "x=5", List.of("2x = 10", "X = 4"), "x=4");
+        AiStepEvalRequest bob = new AiStepEvalRequest("ex1", "bob", "x=5", List.of("2x=10", "x=4"), "x = 4");
+
+        AiStepEvalResponse forAlice = cache.get(alice, ai);
+        AiStepEvalResponse forBob = cache.get(bob, ai);
+
+        assertEquals(1, calls.get());
+        assertEquals(List.of("2x = 10", "X = 4"), forAlice.getStepsFeedback().stream().map(AiStepEvalResponse.StepFeedback::getStep).toList());
+        assertEquals(List.of("2x=10", "x=4"), forBob.getStepsFeedback().stream().map(AiStepEvalResponse.StepFeedback::getStep).toList());
+        assertFalse(forBob.getStepsFeedback().get(1).isCorrect());
+        assertEquals("Divise par 2", forBob.getStepsFeedback().get(1).getHint());
+        assertEquals("x = 5", forBob.getCorrectAnswer());
+    }
+
+    @Test
+    void sharedLoaderResultIsAlsoRewrittenForTheRequester() {
+        // réponse obtenue pour un autre élève (appel coalescé par SingleFlight)
+        AiStepEvalRequest leader = new AiStepEvalRequest("ex1", "alice", "x=5", List.of("2x = 10", "X = 4"), "x=4");
+        AiStepEvalResponse leaderResponse = evaluate(leader);
+
+        AiStepEvalRequest follower = new AiStepEvalRequest("ex1", "bob", "x=5", List.of("2x=10", "x=4"), "x=4");
+        AiStepEvalResponse forFollower = cache.get(follower, r -> leaderResponse);
+
+        assertEquals("x=4", forFollower.getStepsFeedback().get(1).getStep());
+        assertEquals("X = 4", leaderResponse.getStepsFeedback().get(1).getStep());
+    }
+
+    @Test
+    void failedEvaluationIsNotCached() {
+        AiStepEvalRequest req = new AiStepEvalRequest("ex1", "alice", "x=5", List.of("2x = 10", "x = 5"), "x=5");
+        assertNull(cache.get(req, r -> null));
+        assertEquals(0, cache.size());
+        assertNotNull(cache.get(req, AiStepEvalCacheTest::evaluate));
+        assertEquals(1, cache.size());
+    }
+}
@@ -0,0 +1,55 @@
+package com.neurotutor.exercise.service;
+
+import com.neurotutor.exercise.model.Exercise;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnswerEquivalenceServiceTest {
+
+    private final AnswerEquivalenceService service = new AnswerEquivalenceService(2);
+
+    private static Exercise exercise(String id, String solution) {
+        return Exercise.builder().id(id).solution(solution).build();
+    }
+
+    @Test
+    void solutionIsCompiledOncePerExercise() {
+        Exercise ex = exercise("e1", "x=5");
+        assertTrue(service.isEquivalent(ex, "5=x"));
+        assertTrue(service.isEquivalent(ex, "x=10/2"));
+        assertFalse(service.isEquivalent(ex, "x=4"));
+        assertEquals(1, service.compilations());
+
+        // solution modifiée : recompilée
+        assertTrue(service.isEquivalent(exercise("e1", "x=4"), "x=4"));
+        assertEquals(2, service.compilations());
+    }
+
+    @Test
+    void unsupportedSolutionIsCachedToo() {
+        Exercise ex = exercise("e1", "x=2^100");
+        assertFalse(service.isEquivalent(ex, "x=2^100"));
+        assertFalse(service.isEquivalent(ex, "x=2^100"));
+        assertEquals(1, service.compilations());
+        assertEquals(1, service.size());
+    }
+
+    @Test
+    void cacheIsBoundedAndEvictedOnDelete() {
+        service.isEquivalent(exercise("e1", "x=1"), "x=1");
+        service.isEquivalent(exercise("e2", "x=2"), "x=2");
+        service.isEquivalent(exercise("e1", "x=1"), "x=1"); // e1 devient le plus récent
+        service.isEquivalent(exercise("e3", "x=3"), "x=3");
+        assertEquals(2, service.size());
+        assertEquals(3, service.compilations());
+
+        // e2 évincé (LRU), e1 toujours là
+        service.isEquivalent(exercise("e1", "x=1"), "x=1");
+        assertEquals(3, service.compilations());
+
+        service.evict("e1");
+        service.evict("e3");
+        assertEquals(0, service.size());
+    }
+}
@@ -0,0 +1,44 @@
+package com.neurotutor.exercise.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnswerMatcherTest {
+
+    @Test
+    void ignoresSpacesAndCase() {
+        String solution = AnswerMatcher.canonical("x = 4");
+        assertTrue(AnswerMatcher.matches("  X=4 ", solution));
+        assertTrue(AnswerMatcher.matches("x =  4", solution));
+        assertFalse(AnswerMatcher.matches("x=40", solution));
+        assertFalse(AnswerMatcher.matches("x=", solution));
+    }
+
+    @Test
+    void nullAnswerOnlyMatchesEmptySolution() {
+        assertTrue(AnswerMatcher.matches(null, AnswerMatcher.canonical(null)));
+        assertFalse(AnswerMatcher.matches(null, AnswerMatcher.canonical("x=4")));
+    }
+
+    @Test
+    void foldsNonAsciiLikeCanonical() {
+        // sigma final : "ΟΣ" -> "ος" en minuscules de chaîne, "οσ" caractère par caractère
+        assertTrue(AnswerMatcher.matches("ΟΣ", AnswerMatcher.canonical("ΟΣ")));
+        assertTrue(AnswerMatcher.matches("ος", AnswerMatcher.canonical("ΟΣ")));
+        // İ (U+0130) devient "i̇" (deux caractères) en Locale.ROOT
+        assertTrue(AnswerMatcher.matches("İ = 2", AnswerMatcher.canonical("İ=2")));
+        assertTrue(AnswerMatcher.matches("Élan", AnswerMatcher.canonical("élan")));
+    }
+
+    @Test
+    void agreesWithCanonicalEquality() {
+        String[] answers = {"x=4", " X = 4 ", "ΟΣ", "οσ", "ος", "İ", "i", "ǅ", "ß", "SS", "Ω=2"};
+        for (String a : answers) {
+            for (String b : answers) {
+                assertEquals(AnswerMatcher.canonical(a).equals(AnswerMatcher.canonical(b)),
+                        AnswerMatcher.matches(a, AnswerMatcher.canonical(b)), a + " / " + b);
+            }
+        }
+    }
+}
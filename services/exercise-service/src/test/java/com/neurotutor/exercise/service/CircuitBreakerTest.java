@@ -0,0 +1,64 @@
+package com.neurotutor.exercise.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static CircuitBreaker breaker(Duration openDuration) {
+        return new CircuitBreaker("test", 4, 4, 50, openDuration, 2, e -> !(e instanceof IllegalArgumentException));
+    }
+
+    private static void fail(CircuitBreaker cb) {
+        assertThrows(IllegalStateException.class, () -> cb.execute(() -> {
+            throw new IllegalStateException("down");
+        }));
+    }
+
+    @Test
+    void opensAtFailureRateThenRejectsWithoutCalling() {
+        CircuitBreaker cb = breaker(Duration.ofMinutes(1));
+        cb.execute(() -> "ok");
+        cb.execute(() -> "ok");
+        fail(cb);
+        assertEquals(CircuitBreaker.State.CLOSED, cb.state());
+        fail(cb); // 2 échecs sur 4 = 50 %
+        assertEquals(CircuitBreaker.State.OPEN, cb.state());
+
+        assertThrows(DependencyUnavailableException.class, () -> cb.execute(() -> {
+            throw new AssertionError("must not be called");
+        }));
+        assertEquals(1, cb.rejected());
+    }
+
+    @Test
+    void clientErrorsDoNotCountAsFailures() {
+        CircuitBreaker cb = breaker(Duration.ofMinutes(1));
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IllegalArgumentException.class, () -> cb.execute(() -> {
+                throw new IllegalArgumentException("400");
+            }));
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, cb.state());
+    }
+
+    @Test
+    void halfOpenProbesCloseOrReopen() throws InterruptedException {
+        CircuitBreaker cb = breaker(Duration.ofMillis(20));
+        for (int i = 0; i < 4; i++) fail(cb);
+        assertTrue(cb.isOpen());
+
+        Thread.sleep(30);
+        fail(cb); // sonde en échec : réouvert
+        assertEquals(CircuitBreaker.State.OPEN, cb.state());
+
+        Thread.sleep(30);
+        cb.execute(() -> "ok");
+        assertEquals(CircuitBreaker.State.HALF_OPEN, cb.state());
+        cb.execute(() -> "ok");
+        assertEquals(CircuitBreaker.State.CLOSED, cb.state());
+    }
+}
@@ -0,0 +1,106 @@
+package com.neurotutor.exercise.service;
+
+import com.neurotutor.exercise.model.Exercise;
+import com.neurotutor.exercise.model.UserLevel;
+import com.neurotutor.exercise.repository.ExerciseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ExerciseCatalogTest {
+
+    private final List<Exercise> stored = new ArrayList<>();
+    private ExerciseRepository repository;
+    private ExerciseCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ExerciseRepository.class);
+        when(repository.findAll()).thenAnswer(inv -> new ArrayList<>(stored));
+        when(repository.findById(anyString())).thenAnswer(inv -> stored.stream()
+                .filter(ex -> ex.getId().equals(inv.getArgument(0)))
+                .findFirst());
+        catalog = new ExerciseCatalog(repository, new SimpleMeterRegistry());
+
+        stored.add(exercise("a1", "BEGINNER"));
+        stored.add(exercise("a2", "ADVANCED"));
+    }
+
+    private static Exercise exercise(String id, String difficulty) {
+        return Exercise.builder().id(id).title("Exercice " + id).difficulty(difficulty).build();
+    }
+
+    @Test
+    void loadsOnceAndCountsOnlyPublicReads() {
+        assertEquals(2, catalog.findAll().size());
+        assertEquals(1, catalog.findAccessibleTo(UserLevel.BEGINNER).size());
+        assertTrue(catalog.findById("a2").isPresent());
+        catalog.getETag();
+        catalog.getVersion();
+
+        verify(repository, times(1)).findAll();
+        assertEquals(1, catalog.getMisses());
+        assertEquals(2, catalog.getHits());
+    }
+
+    @Test
+    void writesPatchTheSnapshotAndBumpTheVersion() {
+        catalog.findAll();
+        String etag = catalog.getETag();
+        long version = catalog.getVersion();
+
+        catalog.put(exercise("a3", "INTERMEDIATE"));
+        assertEquals(version + 1, catalog.getVersion());
+        assertNotEquals(etag, catalog.getETag());
+        assertEquals(List.of("a1", "a2", "a3"), catalog.findAll().stream().map(Exercise::getId).toList());
+
+        catalog.put(exercise("a1", "ADVANCED"));
+        assertEquals("ADVANCED", catalog.findById("a1").orElseThrow().getDifficulty());
+
+        catalog.remove("a2");
+        assertEquals(version + 3, catalog.getVersion());
+        assertEquals(List.of("a1", "a3"), catalog.findAll().stream().map(Exercise::getId).toList());
+
+        verify(repository, times(1)).findAll();
+    }
+
+    @Test
+    void invalidateAllReloadsOnNextRead() {
+        catalog.findAll();
+        long version = catalog.getVersion();
+
+        stored.add(exercise("a3", "BEGINNER"));
+        catalog.invalidateAll();
+
+        assertEquals(3, catalog.findAll().size());
+        assertTrue(catalog.getVersion() > version);
+        verify(repository, times(2)).findAll();
+    }
+
+    @Test
+    void unknownIdReadsThroughToMongo() {
+        catalog.findAll();
+        long version = catalog.getVersion();
+        long misses = catalog.getMisses();
+
+        // écrit par une autre instance : absent du snapshot
+        stored.add(exercise("b1", "BEGINNER"));
+        Optional<Exercise> found = catalog.findById("b1");
+
+        assertTrue(found.isPresent());
+        assertEquals(misses + 1, catalog.getMisses());
+        assertEquals(version + 1, catalog.getVersion());
+        assertEquals(3, catalog.findAll().size());
+
+        assertTrue(catalog.findById("missing").isEmpty());
+        assertEquals(misses + 2, catalog.getMisses());
+        verify(repository, times(1)).findAll();
+    }
+}
@@ -0,0 +1,85 @@
+package com.neurotutor.exercise.service;
+
+import com.neurotutor.exercise.model.Exercise;
+import org.junit.jupiter.api.Test;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExerciseFacetIndexTest {
+
+    private final ExerciseFacetIndex index = new ExerciseFacetIndex(List.of(
+            exercise("e0", "BEGINNER", List.of("algebre"), List.of("equation"), List.of("TEXT")),
+            exercise("e1", "ADVANCED", List.of("algebre", "fonctions"), List.of("equation", "brevet"), List.of("TEXT", "IMAGE")),
+            exercise("e2", "BEGINNER", List.of("geometrie"), null, List.of("IMAGE")),
+            exercise("e3", "INTERMEDIATE", List.of("fonctions"), List.of("brevet"), List.of("TEXT")),
+            exercise("e4", " ", null, null, null)
+    ));
+
+    private static Exercise exercise(String id, String difficulty, List<String> topics, List<String> tags, List<String> types) {
+        return Exercise.builder().id(id).difficulty(difficulty).topics(topics).tags(tags).responseTypes(types).build();
+    }
+
+    private static List<Map.Entry<String, String>> terms(String... facetValues) {
+        return Arrays.stream(facetValues)
+                .map(t -> (Map.Entry<String, String>) new AbstractMap.SimpleImmutableEntry<>(t.split(":")[0], t.split(":")[1]))
+                .toList();
+    }
+
+    private List<String> ids(BitSet bits) {
+        return index.documents(bits).stream().map(Exercise::getId).toList();
+    }
+
+    @Test
+    void noTermsMatchesEverything() {
+        assertEquals(List.of("e0", "e1", "e2", "e3", "e4"), ids(index.match(terms(), terms(), terms())));
+    }
+
+    @Test
+    void allIsAnIntersection() {
+        assertEquals(List.of("e1"), ids(index.match(terms("topic:algebre", "tag:brevet"), terms(), terms())));
+        assertEquals(List.of("e0", "e2"), ids(index.match(terms("difficulty:BEGINNER"), terms(), terms())));
+        // valeur ou facette inconnue : ensemble vide
+        assertTrue(ids(index.match(terms("topic:probabilites"), terms(), terms())).isEmpty());
+        assertTrue(ids(index.match(terms("author:x"), terms(), terms())).isEmpty());
+    }
+
+    @Test
+    void anyIsAUnionAndNotIsSubtracted() {
+        assertEquals(List.of("e0", "e1", "e2"), ids(index.match(terms(), terms("topic:algebre", "topic:geometrie"), terms())));
+        assertEquals(List.of("e0", "e2"),
+                ids(index.match(terms(), terms("topic:algebre", "topic:geometrie"), terms("difficulty:ADVANCED"))));
+        assertEquals(List.of("e2", "e4"), ids(index.match(terms(), terms(), terms("responseType:TEXT"))));
+        assertEquals(List.of("e3"),
+                ids(index.match(terms("responseType:TEXT"), terms("tag:brevet", "topic:geometrie"), terms("topic:algebre"))));
+    }
+
+    @Test
+    void facetCountsAreRestrictedToTheResult() {
+        BitSet beginner = index.match(terms("difficulty:BEGINNER"), terms(), terms());
+        Map<String, Map<String, Integer>> counts = index.facetCounts(beginner);
+
+        assertEquals(ExerciseFacetIndex.FACETS, List.copyOf(counts.keySet()));
+        assertEquals(Map.of("algebre", 1, "geometrie", 1), counts.get("topic"));
+        assertEquals(Map.of("equation", 1), counts.get("tag"));
+        assertEquals(Map.of("BEGINNER", 2), counts.get("difficulty"));
+        assertEquals(Map.of("TEXT", 1, "IMAGE", 1), counts.get("responseType"));
+
+        // valeurs triées, zéros omis ; difficulté vide non indexée
+        Map<String, Map<String, Integer>> all = index.facetCounts(index.match(terms(), terms(), terms()));
+        assertEquals(List.of("algebre", "fonctions", "geometrie"), List.copyOf(all.get("topic").keySet()));
+        assertEquals(Map.of("ADVANCED", 1, "BEGINNER", 2, "INTERMEDIATE", 1), all.get("difficulty"));
+    }
+
+    @Test
+    void matchDoesNotAlterThePostings() {
+        index.match(terms("topic:algebre"), terms(), terms("tag:brevet"));
+        assertEquals(List.of("e0", "e1"), ids(index.match(terms("topic:algebre"), terms(), terms())));
+    }
+}
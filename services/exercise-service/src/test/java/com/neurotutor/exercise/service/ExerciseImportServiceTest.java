@@ -0,0 +1,164 @@
+package com.neurotutor.exercise.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.neurotutor.exercise.dto.ImportReportDto;
+import com.neurotutor.exercise.model.Exercise;
+import org.bson.BsonObjectId;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ExerciseImportServiceTest {
+
+    // collection simulée : contentHash -> document upserté
+    private final Map<String, Document> collection = new HashMap<>();
+    private int executes;
+    private int failOnExecute = -1;
+
+    private ExerciseCatalog catalog;
+    private ExerciseService exerciseService;
+    private ExerciseImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext context = new MongoMappingContext();
+        context.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, context);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        MongoTemplate template = mock(MongoTemplate.class);
+        when(template.getConverter()).thenReturn(converter);
+        when(template.bulkOps(eq(BulkOperations.BulkMode.UNORDERED), eq(Exercise.class))).thenAnswer(inv -> fakeBulk());
+
+        // relecture après bulkCreate : contentHash $in sur la collection simulée
+        when(template.find(any(Query.class), eq(Exercise.class))).thenAnswer(inv -> collection.values().stream()
+                .map(doc -> converter.read(Exercise.class, doc))
+                .toList());
+
+        catalog = mock(ExerciseCatalog.class);
+        // repository null : un saveAll / save dans bulkCreate échouerait
+        exerciseService = new ExerciseService(null, catalog, new AnswerEquivalenceService(100), template);
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        importService = new ExerciseImportService(mapper, exerciseService, catalog);
+        ReflectionTestUtils.setField(importService, "batchSize", 2);
+    }
+
+    // upserts accumulés puis appliqués à la collection simulée à l'execute()
+    private BulkOperations fakeBulk() {
+        BulkOperations ops = mock(BulkOperations.class);
+        List<Document> pending = new ArrayList<>();
+        when(ops.upsert(any(Query.class), any(Update.class))).thenAnswer(inv -> {
+            pending.add(inv.getArgument(1, Update.class).getUpdateObject().get("$set", Document.class));
+            return ops;
+        });
+        when(ops.execute()).thenAnswer(inv -> {
+            if (executes++ == failOnExecute) throw new IllegalStateException("connection reset");
+            int matched = 0;
+            List<BulkWriteUpsert> upserts = new ArrayList<>();
+            for (int i = 0; i < pending.size(); i++) {
+                Document set = pending.get(i);
+                if (collection.put(set.getString("contentHash"), set) != null) matched++;
+                else upserts.add(new BulkWriteUpsert(i, new BsonObjectId()));
+            }
+            return BulkWriteResult.acknowledged(0, matched, 0, matched, upserts, List.of());
+        });
+        return ops;
+    }
+
+    private static InputStream ndjson(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String line(String title, String solution) {
+        return "{\"title\":\"" + title + "\",\"problemStatement\":\"Résoudre\",\"solution\":\"" + solution + "\"}";
+    }
+
+    @Test
+    void reportsInvalidLinesWithTheirNumberAndCollapsesRepeats() throws IOException {
+        ImportReportDto report = importService.importNdjson(ndjson(
+                line("Equation 1", "x=4"),
+                "{not json",
+                "",
+                "{\"solution\":\"x=1\"}",
+                line("  equation   1 ", "x=4")
+        ));
+
+        assertEquals(4, report.getReceived());
+        assertEquals(1, report.getInserted());
+        assertEquals(1, report.getDuplicates());
+        assertEquals(2, report.getFailed());
+        assertEquals(List.of(2L, 4L), report.getErrors().stream().map(ImportReportDto.LineError::getLine).toList());
+        assertEquals("Title is required", report.getErrors().get(1).getMessage());
+        assertEquals(1, collection.size());
+        verify(catalog).invalidateAll();
+    }
+
+    @Test
+    void reimportUpdatesInsteadOfInserting() throws IOException {
+        String[] file = {line("Equation 1", "x=4"), line("Equation 2", "x=5"), line("Equation 3", "x=6")};
+
+        ImportReportDto first = importService.importNdjson(ndjson(file));
+        assertEquals(3, first.getInserted());
+        assertEquals(0, first.getUpdated());
+
+        ImportReportDto second = importService.importNdjson(ndjson(file));
+        assertEquals(0, second.getInserted());
+        assertEquals(3, second.getUpdated());
+        assertEquals(3, collection.size());
+    }
+
+    @Test
+    void bulkCreateTwiceUpsertsOnContentHash() {
+        exerciseService.bulkCreate(List.of(exercise("Addition", "4"), exercise("Soustraction", "6")));
+        List<Exercise> second = exerciseService.bulkCreate(List.of(exercise("Addition", "4"), exercise("Soustraction", "6")));
+
+        assertEquals(2, collection.size());
+        assertEquals(2, second.size());
+        verify(catalog, times(2)).putAll(anyList());
+    }
+
+    private static Exercise exercise(String title, String solution) {
+        return Exercise.builder().title(title).problemStatement("Calculer").solution(solution).build();
+    }
+
+    @Test
+    void failedImportStillInvalidatesCatalogForWrittenBatches() {
+        failOnExecute = 1; // premier lot écrit, le second échoue
+
+        assertThrows(IllegalStateException.class, () -> importService.importNdjson(ndjson(
+                line("Equation 1", "x=4"), line("Equation 2", "x=5"),
+                line("Equation 3", "x=6"), line("Equation 4", "x=7")
+        )));
+        assertEquals(2, collection.size());
+        verify(catalog).invalidateAll();
+    }
+}
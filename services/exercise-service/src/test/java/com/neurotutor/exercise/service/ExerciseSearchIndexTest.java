@@ -0,0 +1,85 @@
+package com.neurotutor.exercise.service;
+
+import com.neurotutor.exercise.model.Exercise;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExerciseSearchIndexTest {
+
+    private static Exercise exercise(String id, String title, String statement) {
+        return Exercise.builder().id(id).title(title).problemStatement(statement).build();
+    }
+
+    @Test
+    void analyzerFoldsCaseAccentsAndLigatures() {
+        assertEquals(List.of("priorit", "operatoir"), ExerciseSearchIndex.analyze("Priorités OPÉRATOIRES"));
+        assertEquals(ExerciseSearchIndex.analyze("coeur"), ExerciseSearchIndex.analyze("Cœur"));
+        assertEquals(ExerciseSearchIndex.analyze("ex aequo"), ExerciseSearchIndex.analyze("EX ÆQUO"));
+        assertEquals(List.of(), ExerciseSearchIndex.analyze("  "));
+    }
+
+    @Test
+    void analyzerIgnoresServerLocale() {
+        Locale previous = Locale.getDefault();
+        try {
+            Locale.setDefault(new Locale("tr", "TR"));
+            assertEquals(List.of("inequ"), ExerciseSearchIndex.analyze("INEQUATION"));
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    @Test
+    void stopWordsAndSingleLettersAreDropped() {
+        assertEquals(List.of("resoudr", "equ", "form", "2"),
+                ExerciseSearchIndex.analyze("Résoudre l'équation de la forme x + 2"));
+        assertEquals(List.of(), ExerciseSearchIndex.analyze("le la les et ou"));
+    }
+
+    @Test
+    void stemmerMergesPluralsAndSuffixes() {
+        assertEquals(ExerciseSearchIndex.stem("equation"), ExerciseSearchIndex.stem("equations"));
+        assertEquals(ExerciseSearchIndex.stem("priorite"), ExerciseSearchIndex.stem("priorites"));
+        assertEquals("normal", ExerciseSearchIndex.stem("normaux"));
+        assertEquals("calcul", ExerciseSearchIndex.stem("calculer"));
+        assertEquals("2024", ExerciseSearchIndex.stem("2024"));
+    }
+
+    @Test
+    void bm25RanksTitleMatchesAndRareTermsFirst() {
+        ExerciseSearchIndex index = new ExerciseSearchIndex();
+        index.rebuild(List.of(
+                exercise("e1", "Fractions", "Simplifier une fraction puis calculer"),
+                exercise("e2", "Équations du premier degré", "Résoudre une équation avec des fractions"),
+                exercise("e3", "Pourcentages", "Calculer un pourcentage")
+        ));
+
+        assertEquals(List.of("e1", "e2"), index.search("fractions", 10));
+        assertEquals(List.of("e2"), index.search("équation", 10));
+        assertEquals("e2", index.search("équation calcul", 10).get(0));
+        assertEquals(List.of("e1"), index.search("fraction", 1));
+        assertTrue(index.search("géométrie", 10).isEmpty());
+    }
+
+    @Test
+    void putAndRemoveUpdateTheIndexIncrementally() {
+        ExerciseSearchIndex index = new ExerciseSearchIndex();
+        index.rebuild(List.of(exercise("e1", "Fractions", "Simplifier")));
+
+        index.put(exercise("e2", "Vecteurs", "Coordonnées d'un vecteur"));
+        assertEquals(List.of("e2"), index.search("vecteur", 10));
+
+        // mise à jour : les anciens termes ne trouvent plus l'exercice
+        index.put(exercise("e1", "Pourcentages", "Remise"));
+        assertTrue(index.search("fractions", 10).isEmpty());
+        assertEquals(List.of("e1"), index.search("pourcentage", 10));
+
+        index.remove("e2");
+        assertTrue(index.search("vecteur", 10).isEmpty());
+    }
+}
@@ -0,0 +1,105 @@
+package com.neurotutor.exercise.service;
+
+import com.neurotutor.exercise.dto.CursorPage;
+import com.neurotutor.exercise.dto.ExerciseSummaryDto;
+import com.neurotutor.exercise.dto.FacetSearchResponse;
+import com.neurotutor.exercise.model.Exercise;
+import com.neurotutor.exercise.repository.ExerciseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExerciseServiceTest {
+
+    private final List<Exercise> stored = new ArrayList<>();
+    private ExerciseRepository repository;
+    private ExerciseService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ExerciseRepository.class);
+        when(repository.findAll()).thenAnswer(inv -> new ArrayList<>(stored));
+        ExerciseCatalog catalog = new ExerciseCatalog(repository, new SimpleMeterRegistry());
+        service = new ExerciseService(repository, catalog, new AnswerEquivalenceService(100), null);
+
+        stored.add(exercise("e1", "BEGINNER", "algebre"));
+        stored.add(exercise("e2", "ADVANCED", "algebre"));
+        stored.add(exercise("e3", "BEGINNER", "geometrie"));
+        stored.add(exercise("e4", "BEGINNER", "algebre"));
+        stored.add(exercise("e5", "INTERMEDIATE", "algebre"));
+    }
+
+    private static Exercise exercise(String id, String difficulty, String topic) {
+        return Exercise.builder().id(id).title("Exercice " + id).difficulty(difficulty).topics(List.of(topic)).build();
+    }
+
+    private static List<String> ids(CursorPage<ExerciseSummaryDto> page) {
+        return page.getValue().stream().map(ExerciseSummaryDto::getId).toList();
+    }
+
+    @Test
+    void duplicateContentIsRejectedAsBadRequest() {
+        when(repository.save(any(Exercise.class))).thenThrow(new DuplicateKeyException("E11000 contentHash_unique"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> service.createExercise(Exercise.builder().title("Addition").solution("4").build()));
+        assertTrue(e.getMessage().contains("already exists"));
+    }
+
+    @Test
+    void pagesFollowIdOrder() {
+        CursorPage<ExerciseSummaryDto> first = service.listExercisesPage(null, null, null, null, 2);
+        assertEquals(List.of("e1", "e2"), ids(first));
+        assertEquals("e2", first.getNextCursor());
+
+        CursorPage<ExerciseSummaryDto> second = service.listExercisesPage(null, null, null, first.getNextCursor(), 2);
+        assertEquals(List.of("e3", "e4"), ids(second));
+
+        CursorPage<ExerciseSummaryDto> last = service.listExercisesPage(null, null, null, second.getNextCursor(), 2);
+        assertEquals(List.of("e5"), ids(last));
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void filtersApplyBeforeThePageIsCut() {
+        CursorPage<ExerciseSummaryDto> first = service.listExercisesPage(null, null, "algebre", null, 2);
+        assertEquals(List.of("e1", "e2"), ids(first));
+
+        CursorPage<ExerciseSummaryDto> second = service.listExercisesPage(null, null, "algebre", first.getNextCursor(), 2);
+        assertEquals(List.of("e4", "e5"), ids(second));
+        assertNull(second.getNextCursor());
+
+        CursorPage<ExerciseSummaryDto> beginner = service.listExercisesPage("BEGINNER", null, null, null, 10);
+        assertEquals(List.of("e1", "e3", "e4"), ids(beginner));
+    }
+
+    @Test
+    void cursorPastTheEndAndLimitBounds() {
+        assertTrue(service.listExercisesPage(null, null, null, "e9", 2).getValue().isEmpty());
+        assertEquals(ExerciseService.MAX_PAGE_SIZE, ExerciseService.clampPageSize(10_000));
+        assertEquals(ExerciseService.DEFAULT_PAGE_SIZE, ExerciseService.clampPageSize(null));
+        assertThrows(IllegalArgumentException.class, () -> ExerciseService.clampPageSize(0));
+    }
+
+    @Test
+    void facetSearchParsesTermsAndReturnsCounts() {
+        FacetSearchResponse res = service.facetSearch(List.of("topic:algebre"), null, List.of("difficulty:ADVANCED"));
+        assertEquals(List.of("e1", "e4", "e5"), res.getValue().stream().map(ExerciseSummaryDto::getId).toList());
+        assertEquals(3, res.getCount());
+        assertEquals(Map.of("BEGINNER", 2, "INTERMEDIATE", 1), res.getFacets().get("difficulty"));
+
+        assertThrows(IllegalArgumentException.class, () -> service.facetSearch(List.of("algebre"), null, null));
+        assertThrows(IllegalArgumentException.class, () -> service.facetSearch(List.of("topic:"), null, null));
+        assertThrows(IllegalArgumentException.class, () -> service.facetSearch(List.of("author:x"), null, null));
+    }
+}
@@ -0,0 +1,87 @@
+package com.neurotutor.exercise.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HedgedCallerTest {
+
+    private static HedgedCaller caller(List<String> replicas, double budgetPercent) {
+        return new HedgedCaller("test", () -> replicas, 100, 95, budgetPercent,
+                Duration.ofMillis(10), Duration.ofMillis(30));
+    }
+
+    @Test
+    void slowPrimaryIsHedgedAndCancelled() throws InterruptedException {
+        CountDownLatch loserInterrupted = new CountDownLatch(1);
+        Function<String, String> call = url -> {
+            if (url.equals("fast")) return "fast";
+            try {
+                Thread.sleep(5_000);
+                return "slow";
+            } catch (InterruptedException e) {
+                loserInterrupted.countDown();
+                throw new IllegalStateException("cancelled");
+            }
+        };
+
+        try (HedgedCaller hc = caller(List.of("slow", "fast"), 100)) {
+            long start = System.nanoTime();
+            assertEquals("fast", hc.call(call));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+            assertEquals(1, hc.hedges());
+            assertEquals(1, hc.hedgeWins());
+            assertTrue(loserInterrupted.await(2, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void noHedgeBeyondBudget() {
+        Function<String, String> call = url -> {
+            sleep(60);
+            return url;
+        };
+        try (HedgedCaller hc = caller(List.of("a", "b"), 0)) {
+            assertEquals("a", hc.call(call));
+            assertEquals("b", hc.call(call));
+            assertEquals(0, hc.hedges());
+        }
+    }
+
+    @Test
+    void failedPrimaryFallsBackOnHedge() {
+        Function<String, String> call = url -> {
+            sleep(60);
+            if (url.equals("a")) throw new IllegalStateException("500");
+            return url;
+        };
+        try (HedgedCaller hc = caller(List.of("a", "b"), 100)) {
+            assertEquals("b", hc.call(call));
+        }
+    }
+
+    @Test
+    void singleReplicaRunsOnCallerThread() {
+        Thread caller = Thread.currentThread();
+        try (HedgedCaller hc = caller(List.of("only"), 100)) {
+            assertEquals("only", hc.call(url -> {
+                assertSame(caller, Thread.currentThread());
+                return url;
+            }));
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
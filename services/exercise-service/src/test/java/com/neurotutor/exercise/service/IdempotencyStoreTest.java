@@ -0,0 +1,83 @@
+package com.neurotutor.exercise.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+
+    private static IdempotencyStore store(Duration ttl) {
+        return new IdempotencyStore(ttl, Duration.ofSeconds(5), 1000, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void concurrentDuplicatesWaitForTheFirstCall() throws Exception {
+        IdempotencyStore store = store(Duration.ofHours(1));
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<IdempotencyStore.Result<String>>> calls = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                calls.add(pool.submit(() -> store.execute("k1", "u1", "fp", () -> {
+                    executions.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "submission-1";
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            int replayed = 0;
+            for (Future<IdempotencyStore.Result<String>> f : calls) {
+                IdempotencyStore.Result<String> r = f.get(5, TimeUnit.SECONDS);
+                assertEquals("submission-1", r.value());
+                if (r.replayed()) replayed++;
+            }
+            assertEquals(1, executions.get());
+            assertEquals(7, replayed);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void keysAreScopedPerUserAndRequest() {
+        IdempotencyStore store = store(Duration.ofHours(1));
+        assertEquals("a", store.execute("k", "u1", "fp", () -> "a").value());
+        assertEquals("b", store.execute("k", "u2", "fp", () -> "b").value());
+        assertThrows(IllegalArgumentException.class, () -> store.execute("k", "u1", "other", () -> "c"));
+    }
+
+    @Test
+    void failuresAreNotRetainedAndEntriesExpire() throws InterruptedException {
+        IdempotencyStore store = store(Duration.ofMillis(50));
+        assertThrows(IllegalArgumentException.class,
+                () -> store.execute("k", "u", "fp", () -> {
+                    throw new IllegalArgumentException("answer is required");
+                }));
+        assertFalse(store.execute("k", "u", "fp", () -> "ok").replayed());
+        assertTrue(store.execute("k", "u", "fp", () -> "again").replayed());
+
+        Thread.sleep(80);
+        IdempotencyStore.Result<String> afterTtl = store.execute("k", "u", "fp", () -> "fresh");
+        assertFalse(afterTtl.replayed());
+        assertEquals("fresh", afterTtl.value());
+    }
+}
@@ -0,0 +1,72 @@
+package com.neurotutor.exercise.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Octets envoyés à l'OCR et temps de prétraitement, sur les dessins canvas de uploads/images
+ * et sur des photos de téléphone simulées (12 Mpx JPEG, éclairage inégal, bruit).
+ * Hors build par défaut : mvn test -Pbenchmark.
+ */
+@Tag("benchmark")
+class ImagePreprocessorBenchmarkTest {
+
+    private static final int RUNS = 3;
+
+    private static final Map<String, byte[]> samples = new LinkedHashMap<>();
+    private final ImagePreprocessor preprocessor = new ImagePreprocessor(
+            true, 2000, 50_000_000L, 2, 8, Duration.ofSeconds(30), new SimpleMeterRegistry());
+
+    @BeforeAll
+    static void loadSamples() throws IOException {
+        Path uploads = Path.of("uploads", "images");
+        if (Files.isDirectory(uploads)) {
+            try (Stream<Path> files = Files.list(uploads)) {
+                for (Path p : files.filter(f -> f.toString().endsWith(".png")).sorted().limit(4).toList()) {
+                    samples.put("canvas " + p.getFileName().toString().substring(0, 8), Files.readAllBytes(p));
+                }
+            }
+        }
+        samples.put("photo 4032x3024 #1", ImagePreprocessorTest.phonePhoto(4032, 3024, 1));
+        samples.put("photo 4032x3024 #2", ImagePreprocessorTest.phonePhoto(4032, 3024, 2));
+    }
+
+    @Test
+    void shrinksPhotosAndKeepsInk() throws IOException {
+        System.out.println("[Bench] sample                  in(B)      out(B)    ms");
+        for (Map.Entry<String, byte[]> e : samples.entrySet()) {
+            byte[] in = e.getValue();
+            byte[] out = null;
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < RUNS; i++) {
+                long start = System.nanoTime();
+                out = preprocessor.toOcrPng(new ByteArrayInputStream(in));
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            System.out.printf("[Bench] %-22s %9d %10d %6d%n", e.getKey(), in.length, out.length, best / 1_000_000);
+
+            BufferedImage result = ImageIO.read(new ByteArrayInputStream(out));
+            assertTrue(Math.max(result.getWidth(), result.getHeight()) <= 2000);
+            assertTrue(ImagePreprocessorTest.inkRatio(result) > 0.001, "ink lost in " + e.getKey());
+
+            if (e.getKey().startsWith("photo")) {
+                assertTrue(out.length * 10 < in.length, e.getKey() + ": " + out.length + " vs " + in.length);
+            }
+        }
+    }
+}
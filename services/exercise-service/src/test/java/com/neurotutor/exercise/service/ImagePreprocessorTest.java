@@ -0,0 +1,136 @@
+package com.neurotutor.exercise.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Correction du prétraitement sur de petites images (rapide) ; les mesures de temps
+ * sur des photos 12 Mpx sont dans ImagePreprocessorBenchmarkTest (mvn test -Pbenchmark).
+ */
+class ImagePreprocessorTest {
+
+    // max-dimension réduite pour que la petite photo soit quand même redimensionnée
+    private final ImagePreprocessor preprocessor = new ImagePreprocessor(
+            true, 500, 50_000_000L, 2, 8, Duration.ofSeconds(30), new SimpleMeterRegistry());
+
+    @Test
+    void shrinksPhotoAndKeepsInk() throws IOException {
+        byte[] in = phonePhoto(1008, 756, 1);
+        byte[] out = preprocessor.toOcrPng(new ByteArrayInputStream(in));
+
+        BufferedImage result = ImageIO.read(new ByteArrayInputStream(out));
+        assertTrue(Math.max(result.getWidth(), result.getHeight()) <= 500); // réduite puis recadrée sur l'encre
+        assertTrue(inkRatio(result) > 0.001, "ink lost");
+        assertTrue(out.length * 10 < in.length, out.length + " vs " + in.length);
+    }
+
+    @Test
+    void keepsInkOfCanvasDrawings() throws IOException {
+        Path uploads = Path.of("uploads", "images");
+        if (!Files.isDirectory(uploads)) return;
+
+        try (Stream<Path> files = Files.list(uploads)) {
+            for (Path p : files.filter(f -> f.toString().endsWith(".png")).sorted().limit(4).toList()) {
+                BufferedImage result = ImageIO.read(new ByteArrayInputStream(
+                        preprocessor.toOcrPng(new ByteArrayInputStream(Files.readAllBytes(p)))));
+                assertTrue(Math.max(result.getWidth(), result.getHeight()) <= 500);
+                assertTrue(inkRatio(result) > 0.001, "ink lost in " + p.getFileName());
+            }
+        }
+    }
+
+    @Test
+    void keepsOriginalWhenNothingToGain() throws IOException {
+        BufferedImage small = new BufferedImage(120, 40, BufferedImage.TYPE_BYTE_BINARY);
+        Graphics2D g = small.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 120, 40);
+        g.setColor(Color.BLACK);
+        g.drawString("x = 4", 10, 25);
+        g.dispose();
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(small, "png", png);
+
+        byte[] tiny = png.toByteArray();
+        byte[] out = preprocessor.preprocessForOcr(new MockMultipartFile("image", "x.png", "image/png", tiny));
+        assertTrue(out == null || out.length < tiny.length);
+
+        MockMultipartFile notAnImage = new MockMultipartFile("image", "x.png", "image/png", "hello".getBytes());
+        assertNull(preprocessor.preprocessForOcr(notAnImage));
+
+        MockMultipartFile photo = new MockMultipartFile("image", "p.jpg", "image/jpeg", phonePhoto(1008, 756, 3));
+        assertNotNull(preprocessor.preprocessForOcr(photo));
+    }
+
+    static double inkRatio(BufferedImage img) {
+        long black = 0;
+        for (int y = 0; y < img.getHeight(); y++) {
+            for (int x = 0; x < img.getWidth(); x++) {
+                if ((img.getRGB(x, y) & 0xFF) < 128) black++;
+            }
+        }
+        return (double) black / ((long) img.getWidth() * img.getHeight());
+    }
+
+    // feuille éclairée de biais + bruit de capteur + calcul manuscrit au milieu (tracé à l'échelle de w)
+    static byte[] phonePhoto(int w, int h, int seed) throws IOException {
+        double scale = w / 4032.0;
+        Random rnd = new Random(seed);
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int light = 235 - (x + y) * 90 / (w + h) + (int) (rnd.nextGaussian() * 6);
+                int v = Math.max(0, Math.min(255, light));
+                img.setRGB(x, y, (v << 16) | (v << 8) | Math.max(0, v - 12));
+            }
+        }
+        Graphics2D g = img.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setColor(new Color(40, 45, 90));
+        g.setFont(new Font(Font.SERIF, Font.ITALIC, (int) (160 * scale)));
+        List<String> lines = List.of("2x + 3 = 11", "2x = 8", "x = 4");
+        for (int i = 0; i < lines.size(); i++) {
+            g.drawString(lines.get(i), (int) (900 * scale), (int) ((1000 + i * 260) * scale));
+        }
+        g.setStroke(new BasicStroke((float) Math.max(2, 9 * scale)));
+        g.drawLine((int) (880 * scale), (int) (1700 * scale), (int) (2400 * scale), (int) (1700 * scale));
+        g.dispose();
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(0.9f);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream out = new MemoryCacheImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(img, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
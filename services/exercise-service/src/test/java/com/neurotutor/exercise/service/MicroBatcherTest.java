@@ -0,0 +1,150 @@
+package com.neurotutor.exercise.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neurotutor.exercise.dto.ia.AiStepEvalBatchRequest;
+import com.neurotutor.exercise.dto.ia.AiStepEvalBatchResponse;
+import com.neurotutor.exercise.dto.ia.AiStepEvalRequest;
+import com.neurotutor.exercise.dto.ia.AiStepEvalResponse;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stub local de POST /evaluation/evaluate-steps/batch (même contrat que ai-service) :
+ * correct_answer = "<exercise_id>:<final_answer>" pour vérifier que chaque appelant reçoit sa réponse.
+ */
+class MicroBatcherTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+    private HttpServer server;
+    private String batchUrl;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/evaluation/evaluate-steps/batch", exchange -> {
+            AiStepEvalBatchRequest batch = mapper.readValue(exchange.getRequestBody(), AiStepEvalBatchRequest.class);
+            batchSizes.add(batch.getRequests().size());
+
+            List<AiStepEvalResponse> responses = new ArrayList<>();
+            for (AiStepEvalRequest r : batch.getRequests()) {
+                responses.add(new AiStepEvalResponse(0.5, List.of(), List.of(), r.getExerciseId() + ":" + r.getFinalAnswer()));
+            }
+
+            byte[] body = mapper.writeValueAsBytes(new AiStepEvalBatchResponse(responses));
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        batchUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/evaluation/evaluate-steps/batch";
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    private List<AiStepEvalResponse> send(List<AiStepEvalRequest> reqs) {
+        AiStepEvalBatchResponse resp = new RestTemplate()
+                .postForObject(batchUrl, new AiStepEvalBatchRequest(reqs), AiStepEvalBatchResponse.class);
+        return resp.getResponses();
+    }
+
+    @Test
+    void fullBatchesAreSentAtOnceAndDemultiplexed() throws Exception {
+        try (MicroBatcher<AiStepEvalRequest, AiStepEvalResponse> batcher =
+                     new MicroBatcher<>("test", 8, Duration.ofSeconds(10), 2, 4, this::send)) {
+
+            List<CompletableFuture<AiStepEvalResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(batcher.submit(new AiStepEvalRequest("ex" + i, "u", "x=5", List.of("2x=10"), "x=" + i)));
+            }
+
+            for (int i = 0; i < 16; i++) {
+                assertEquals("ex" + i + ":x=" + i, futures.get(i).get(5, TimeUnit.SECONDS).getCorrectAnswer());
+            }
+            assertEquals(List.of(8, 8), batchSizes);
+            assertEquals(2, batcher.batches());
+        }
+    }
+
+    @Test
+    void partialBatchIsSentAfterMaxDelay() throws Exception {
+        try (MicroBatcher<AiStepEvalRequest, AiStepEvalResponse> batcher =
+                     new MicroBatcher<>("test", 64, Duration.ofMillis(20), 1, 4, this::send)) {
+
+            CompletableFuture<AiStepEvalResponse> a = batcher.submit(new AiStepEvalRequest("a", "u", "1", List.of(), "1"));
+            CompletableFuture<AiStepEvalResponse> b = batcher.submit(new AiStepEvalRequest("b", "u", "2", List.of(), "2"));
+
+            assertEquals("a:1", a.get(5, TimeUnit.SECONDS).getCorrectAnswer());
+            assertEquals("b:2", b.get(5, TimeUnit.SECONDS).getCorrectAnswer());
+            assertEquals(List.of(2), batchSizes);
+        }
+    }
+
+    @Test
+    void senderFailureFailsEveryCallerOfTheBatch() {
+        try (MicroBatcher<String, String> batcher = new MicroBatcher<>("test", 2, Duration.ofSeconds(10), 1, 4,
+                reqs -> List.of("only one"))) {
+
+            CompletableFuture<String> a = batcher.submit("a");
+            CompletableFuture<String> b = batcher.submit("b");
+
+            assertTrue(a.handle((v, e) -> e != null).join());
+            assertTrue(b.handle((v, e) -> e != null).join());
+        }
+    }
+
+    @Test
+    void batchesBeyondQueueCapacityFailFast() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (MicroBatcher<String, String> batcher = new MicroBatcher<>("test", 1, Duration.ofSeconds(10), 1, 1,
+                reqs -> {
+                    started.countDown();
+                    await(release);
+                    return reqs;
+                })) {
+
+            // "a" occupe l'unique expéditeur, "b" remplit la file, "c" est refusé
+            CompletableFuture<String> running = batcher.submit("a");
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<String> queued = batcher.submit("b");
+            CompletableFuture<String> rejected = batcher.submit("c");
+
+            assertTrue(rejected.isCompletedExceptionally());
+            assertEquals(1, batcher.rejected());
+
+            release.countDown();
+            assertEquals("a", running.get(5, TimeUnit.SECONDS));
+            assertEquals("b", queued.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
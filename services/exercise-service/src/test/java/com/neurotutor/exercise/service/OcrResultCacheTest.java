@@ -0,0 +1,87 @@
+package com.neurotutor.exercise.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OcrResultCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private OcrResultCache cache(int memoryEntries, long diskBytes) {
+        return new OcrResultCache(memoryEntries, true, dir.toString(), diskBytes, 1000, new SimpleMeterRegistry());
+    }
+
+    private static String hash(int i) {
+        return String.format("%064x", i);
+    }
+
+    @Test
+    void repeatImageSkipsOcrAndSurvivesRestart() {
+        AtomicInteger calls = new AtomicInteger();
+        Function<String, String> ocr = h -> {
+            calls.incrementAndGet();
+            return "{\"text\":\"2x+3=11\"}";
+        };
+
+        OcrResultCache first = cache(10, 1 << 20);
+        assertEquals("{\"text\":\"2x+3=11\"}", first.get(hash(1), ocr));
+        assertEquals("{\"text\":\"2x+3=11\"}", first.get(hash(1), ocr));
+        assertEquals(1, calls.get());
+
+        OcrResultCache restarted = cache(10, 1 << 20);
+        assertEquals(1, restarted.diskEntries());
+        assertEquals("{\"text\":\"2x+3=11\"}", restarted.get(hash(1), ocr));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void emptyResultsAreNotCached() {
+        AtomicInteger calls = new AtomicInteger();
+        OcrResultCache cache = cache(10, 1 << 20);
+        cache.get(hash(2), h -> {
+            calls.incrementAndGet();
+            return "";
+        });
+        cache.get(hash(2), h -> {
+            calls.incrementAndGet();
+            return "";
+        });
+        assertEquals(2, calls.get());
+        assertEquals(0, cache.diskEntries());
+    }
+
+    @Test
+    void diskTierEvictsLeastRecentlyUsed() {
+        // 10 octets par résultat, 30 octets max sur disque, 1 seule entrée en mémoire
+        OcrResultCache cache = cache(1, 30);
+        AtomicInteger calls = new AtomicInteger();
+        Function<String, String> ocr = h -> {
+            calls.incrementAndGet();
+            return "result-" + h.substring(61);
+        };
+
+        cache.get(hash(1), ocr);
+        cache.get(hash(2), ocr);
+        cache.get(hash(3), ocr);
+        cache.get(hash(1), ocr); // 1 redevient récent (lu depuis le disque)
+        cache.get(hash(4), ocr); // évince 2
+
+        assertEquals(4, calls.get());
+        assertEquals(3, cache.diskEntries());
+        assertEquals(30, cache.diskBytes());
+
+        cache.get(hash(1), ocr);
+        cache.get(hash(3), ocr);
+        assertEquals(4, calls.get());
+        cache.get(hash(2), ocr);
+        assertEquals(5, calls.get());
+    }
+}
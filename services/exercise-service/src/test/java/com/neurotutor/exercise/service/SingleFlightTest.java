@@ -0,0 +1,108 @@
+package com.neurotutor.exercise.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> flights = new SingleFlight<>();
+    private final ExecutorService pool = Executors.newFixedThreadPool(8);
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // attend que les suivants soient bien bloqués sur l'appel du premier
+    private void awaitCoalesced(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (flights.coalesced() < expected && System.nanoTime() < deadline) Thread.sleep(5);
+        assertEquals(expected, flights.coalesced());
+    }
+
+    @Test
+    void concurrentCallsForTheSameKeyShareOneExecution() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> flights.execute("img", () -> {
+                    executions.incrementAndGet();
+                    await(release);
+                    return "texte";
+                })));
+            }
+            awaitCoalesced(7);
+            release.countDown();
+
+            for (Future<String> r : results) assertEquals("texte", r.get(5, TimeUnit.SECONDS));
+            assertEquals(1, executions.get());
+            assertEquals(1, flights.calls());
+            assertEquals(0, flights.inFlight());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void differentKeysDoNotWaitForEachOther() {
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            Future<String> slow = pool.submit(() -> flights.execute("a", () -> {
+                await(release);
+                return "a";
+            }));
+            assertEquals("b", flights.execute("b", () -> "b"));
+            release.countDown();
+            assertEquals("a", assertDoesNotThrow(() -> slow.get(5, TimeUnit.SECONDS)));
+            assertEquals(0, flights.coalesced());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void failureIsPropagatedToEveryWaiterAndNotRemembered() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(pool.submit(() -> flights.execute("img", () -> {
+                    await(release);
+                    throw new IllegalStateException("ai down");
+                })));
+            }
+            awaitCoalesced(3);
+            release.countDown();
+
+            for (Future<String> r : results) {
+                Throwable cause = assertThrows(ExecutionException.class,
+                        () -> r.get(5, TimeUnit.SECONDS)).getCause();
+                assertInstanceOf(IllegalStateException.class, cause);
+                assertEquals("ai down", cause.getMessage());
+            }
+
+            // pas de cache : l'appel suivant est réexécuté
+            assertEquals(0, flights.inFlight());
+            assertEquals("ok", flights.execute("img", () -> "ok"));
+            assertEquals(2, flights.calls());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.neurotutor.exercise.service;
+
+import com.neurotutor.exercise.config.RestTemplateConfig;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StreamedUploadTest {
+
+    private final byte[] image = new byte[1 << 20];
+
+    private HttpServer server;
+    private String ocrUrl;
+    private CloseableHttpClient httpClient;
+    private final AtomicReference<String> transferEncoding = new AtomicReference<>();
+    private final AtomicReference<byte[]> received = new AtomicReference<>();
+
+    @BeforeEach
+    void startStub() throws Exception {
+        new Random(42).nextBytes(image);
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ocr/process", exchange -> {
+            transferEncoding.set(exchange.getRequestHeaders().getFirst("Transfer-Encoding"));
+            received.set(exchange.getRequestBody().readAllBytes());
+            byte[] body = "texte".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        ocrUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/ocr/process";
+        httpClient = HttpClients.createDefault();
+    }
+
+    @AfterEach
+    void stopStub() throws Exception {
+        httpClient.close();
+        server.stop(0);
+    }
+
+    private MockMultipartFile upload() {
+        return spy(new MockMultipartFile("image", "copie.jpg", "image/jpeg", image));
+    }
+
+    @Test
+    void resourceReportsSizeWithoutReadingAndReopensTheStream() throws Exception {
+        MockMultipartFile file = upload();
+        Resource resource = OcrAiClient.streamed(file);
+
+        assertEquals(image.length, resource.contentLength());
+        assertEquals("copie.jpg", resource.getFilename());
+        verify(file, never()).getInputStream();
+
+        // chaque lecture repart du début du contenu du multipart
+        try (InputStream first = resource.getInputStream(); InputStream second = resource.getInputStream()) {
+            assertArrayEquals(image, first.readAllBytes());
+            assertArrayEquals(image, second.readAllBytes());
+        }
+        verify(file, times(2)).getInputStream();
+        verify(file, never()).getBytes();
+    }
+
+    @Test
+    void uploadTemplateStreamsTheImageChunked() throws Exception {
+        RestTemplateConfig config = new RestTemplateConfig();
+        ReflectionTestUtils.setField(config, "totalTimeout", Duration.ofSeconds(10));
+        RestTemplate uploads = config.uploadRestTemplate(httpClient);
+
+        MockMultipartFile file = upload();
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("text", "");
+        body.add("file", OcrAiClient.streamed(file));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+
+        assertEquals("texte", uploads.postForObject(ocrUrl, new HttpEntity<>(body, headers), String.class));
+
+        // corps non bufferisé : pas de Content-Length calculé d'avance
+        assertEquals("chunked", transferEncoding.get());
+        String multipart = new String(received.get(), StandardCharsets.ISO_8859_1);
+        assertTrue(multipart.contains("filename=\"copie.jpg\""));
+        assertTrue(multipart.contains(new String(image, StandardCharsets.ISO_8859_1)));
+        verify(file, never()).getBytes();
+    }
+}
@@ -0,0 +1,81 @@
+package com.neurotutor.exercise.service;
+
+import com.neurotutor.exercise.dto.SubmitExerciseResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubmissionEventsTest {
+
+    private final SubmissionEvents events = new SubmissionEvents(Duration.ofSeconds(30));
+
+    private static SubmitExerciseResponse result(String id) {
+        return SubmitExerciseResponse.builder().submissionId(id).feedbackStatus(SubmissionService.FEEDBACK_DONE).build();
+    }
+
+    /**
+     * Résultats envoyés à un emitter pas encore rattaché à une réponse HTTP (mis en attente par Spring).
+     */
+    static List<SubmitExerciseResponse> sent(SseEmitter emitter) {
+        @SuppressWarnings("unchecked")
+        Set<ResponseBodyEmitter.DataWithMediaType> early =
+                (Set<ResponseBodyEmitter.DataWithMediaType>) ReflectionTestUtils.getField(emitter, "earlySendAttempts");
+        return early.stream()
+                .map(ResponseBodyEmitter.DataWithMediaType::getData)
+                .filter(SubmitExerciseResponse.class::isInstance)
+                .map(SubmitExerciseResponse.class::cast)
+                .toList();
+    }
+
+    static boolean completed(SseEmitter emitter) {
+        return (boolean) ReflectionTestUtils.getField(emitter, "complete");
+    }
+
+    @Test
+    void subscribersBeforePublishReceiveTheResultOnce() {
+        SseEmitter a = events.subscribe("s1", () -> null);
+        SseEmitter b = events.subscribe("s1", () -> null);
+        SseEmitter other = events.subscribe("s2", () -> null);
+        assertTrue(sent(a).isEmpty());
+
+        events.publish("s1", result("s1"));
+        events.publish("s1", result("s1"));
+
+        assertEquals(List.of("s1"), sent(a).stream().map(SubmitExerciseResponse::getSubmissionId).toList());
+        assertEquals(1, sent(b).size());
+        assertTrue(completed(a) && completed(b));
+        assertTrue(sent(other).isEmpty());
+        assertFalse(completed(other));
+    }
+
+    @Test
+    void lateSubscriberGetsTheStoredResultImmediately() {
+        events.publish("s1", result("s1")); // personne n'écoute encore : rien à faire
+
+        SseEmitter late = events.subscribe("s1", () -> result("s1"));
+
+        assertEquals(1, sent(late).size());
+        assertTrue(completed(late));
+        // publication tardive (doublon) : pas de second envoi
+        events.publish("s1", result("s1"));
+        assertEquals(1, sent(late).size());
+    }
+
+    @Test
+    void resultPublishedWhileSubscribingIsNotSentTwice() {
+        // publish() passe entre l'ajout de l'abonné et la lecture du résultat stocké
+        SseEmitter emitter = events.subscribe("s1", () -> {
+            events.publish("s1", result("s1"));
+            return result("s1");
+        });
+
+        assertEquals(1, sent(emitter).size());
+    }
+}
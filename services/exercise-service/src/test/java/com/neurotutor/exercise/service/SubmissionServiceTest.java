@@ -0,0 +1,257 @@
+package com.neurotutor.exercise.service;
+
+import com.neurotutor.exercise.dto.CursorPage;
+import com.neurotutor.exercise.dto.SubmitExerciseRequest;
+import com.neurotutor.exercise.dto.SubmitExerciseResponse;
+import com.neurotutor.exercise.dto.ia.AiStepEvalRequest;
+import com.neurotutor.exercise.dto.ia.AiStepEvalResponse;
+import com.neurotutor.exercise.model.Exercise;
+import com.neurotutor.exercise.model.Submission;
+import com.neurotutor.exercise.repository.SubmissionRepository;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SubmissionServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 3, 1, 10, 0);
+
+    private SubmissionRepository repository;
+    private OcrAiClient ai;
+    private MongoTemplate mongoTemplate;
+    private SubmissionService service;
+
+    // documents sauvegardés (mode async)
+    private final Map<String, Submission> saved = new ConcurrentHashMap<>();
+    private final AtomicInteger ids = new AtomicInteger();
+
+    // historique de l'élève, déjà trié (submittedAt desc, _id desc)
+    private final List<Submission> history = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(SubmissionRepository.class);
+        ai = mock(OcrAiClient.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        ExerciseService exercises = mock(ExerciseService.class);
+        when(exercises.getExerciseByIdOrThrow("e1")).thenReturn(Exercise.builder()
+                .id("e1").problemStatement("Résoudre : 2x = 10").solution("x=5").points(10).build());
+
+        service = new SubmissionService(repository, exercises, ai, new AnswerEquivalenceService(100),
+                mongoTemplate, new SubmissionEvents(Duration.ofSeconds(30)));
+        ReflectionTestUtils.setField(service, "asyncWorkers", 1);
+        ReflectionTestUtils.setField(service, "asyncQueueCapacity", 1);
+        service.init();
+
+        when(repository.save(any(Submission.class))).thenAnswer(inv -> {
+            Submission s = inv.getArgument(0);
+            s.setId("s" + ids.incrementAndGet());
+            saved.put(s.getId(), s);
+            return s;
+        });
+        when(repository.existsById(anyString())).thenAnswer(inv -> saved.containsKey(inv.getArgument(0, String.class)));
+        when(repository.findById(anyString())).thenAnswer(inv -> Optional.ofNullable(saved.get(inv.getArgument(0, String.class))));
+
+        // deux soumissions à la même seconde : départagées par l'id
+        history.add(submission(new ObjectId("65f000000000000000000005"), T0.plusMinutes(3)));
+        history.add(submission(new ObjectId("65f000000000000000000004"), T0.plusMinutes(2)));
+        history.add(submission(new ObjectId("65f000000000000000000003"), T0.plusMinutes(1)));
+        history.add(submission(new ObjectId("65f000000000000000000002"), T0.plusMinutes(1)));
+        history.add(submission(new ObjectId("65f000000000000000000001"), T0));
+
+        when(repository.findByUserId(eq("u1"), any(Pageable.class))).thenAnswer(inv ->
+                history.stream().limit(inv.getArgument(1, Pageable.class).getPageSize()).toList());
+        // même prédicat que la requête keyset du repository
+        when(repository.findByUserIdAfter(eq("u1"), any(LocalDateTime.class), any(ObjectId.class), any(Pageable.class)))
+                .thenAnswer(inv -> {
+                    LocalDateTime at = inv.getArgument(1);
+                    ObjectId id = inv.getArgument(2);
+                    return history.stream()
+                            .filter(s -> s.getSubmittedAt().isBefore(at)
+                                    || (s.getSubmittedAt().equals(at) && new ObjectId(s.getId()).compareTo(id) < 0))
+                            .limit(inv.getArgument(3, Pageable.class).getPageSize())
+                            .toList();
+                });
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+    }
+
+    private static Submission submission(ObjectId id, LocalDateTime at) {
+        return Submission.builder().id(id.toHexString()).userId("u1").exerciseId("e1").submittedAt(at).build();
+    }
+
+    private static List<String> ids(CursorPage<Submission> page) {
+        return page.getValue().stream().map(Submission::getId).map(id -> id.substring(id.length() - 1)).toList();
+    }
+
+    @Test
+    void cursorWalksTheHistoryWithoutGapsOrRepeats() {
+        CursorPage<Submission> first = service.listByUserPage("u1", null, 2);
+        assertEquals(List.of("5", "4"), ids(first));
+        assertNotNull(first.getNextCursor());
+
+        // la page coupe entre deux soumissions de même submittedAt
+        CursorPage<Submission> second = service.listByUserPage("u1", first.getNextCursor(), 2);
+        assertEquals(List.of("3", "2"), ids(second));
+
+        CursorPage<Submission> last = service.listByUserPage("u1", second.getNextCursor(), 2);
+        assertEquals(List.of("1"), ids(last));
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void cursorEncodesSubmittedAtAndId() {
+        CursorPage<Submission> first = service.listByUserPage("u1", null, 3);
+        service.listByUserPage("u1", first.getNextCursor(), 3);
+
+        verify(repository).findByUserIdAfter(eq("u1"), eq(T0.plusMinutes(1)),
+                eq(new ObjectId("65f000000000000000000003")), any(Pageable.class));
+        assertFalse(first.getNextCursor().contains("="), "cursor must be URL-safe without padding");
+    }
+
+    @Test
+    void exactMultipleOfThePageSizeHasNoNextCursor() {
+        CursorPage<Submission> all = service.listByUserPage("u1", null, 5);
+        assertEquals(5, all.getCount());
+        assertNull(all.getNextCursor());
+    }
+
+    @Test
+    void rejectsInvalidCursorsAndLimits() {
+        assertThrows(IllegalArgumentException.class, () -> service.listByUserPage("u1", "not-a-cursor!", 2));
+        String wrongId = Base64.getUrlEncoder().encodeToString((T0 + "|42").getBytes());
+        assertThrows(IllegalArgumentException.class, () -> service.listByUserPage("u1", wrongId, 2));
+        assertThrows(IllegalArgumentException.class, () -> service.listByUserPage("u1", null, 0));
+        assertThrows(IllegalArgumentException.class, () -> service.listByUserPage(" ", null, 2));
+    }
+
+    // ===== Soumissions async (?async=true) =====
+
+    // étape 2 indécidable localement : il faut l'AI
+    private static SubmitExerciseRequest stepsRequest() {
+        return new SubmitExerciseRequest("u1", null, List.of("2x = 10", "je divise par deux", "x = 4"), "x=4");
+    }
+
+    private static AiStepEvalResponse aiFeedback(AiStepEvalRequest req) {
+        return new AiStepEvalResponse(0.4, List.of(
+                new AiStepEvalResponse.StepFeedback(1, req.getSteps().get(1), true, null, null),
+                new AiStepEvalResponse.StepFeedback(2, req.getSteps().get(2), false, "10 / 2 = 5", "x = 5")
+        ), List.of("x = 5"), "x = 5");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SubmitExerciseResponse awaitEvent(SseEmitter emitter) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (SubmissionEventsTest.sent(emitter).isEmpty() && System.nanoTime() < deadline) Thread.sleep(5);
+        List<SubmitExerciseResponse> sent = SubmissionEventsTest.sent(emitter);
+        assertEquals(1, sent.size());
+        return sent.get(0);
+    }
+
+    @Test
+    void asyncSubmitAnswersWithLocalVerdictsThenStreamsAiFeedback() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(ai.evaluateSteps(any())).thenAnswer(inv -> {
+            await(release);
+            return aiFeedback(inv.getArgument(0));
+        });
+
+        SubmitExerciseResponse now = service.submit("e1", stepsRequest(), true);
+        assertEquals(SubmissionService.FEEDBACK_PENDING, now.getFeedbackStatus());
+        assertFalse(now.isCorrect());
+        assertEquals(0, now.getScoreEarned());
+        // seules les étapes tranchées localement sont déjà là
+        assertEquals(1, now.getStepsFeedback().size());
+        assertEquals(Boolean.TRUE, now.getStepsFeedback().get(0).getCorrect());
+
+        SseEmitter emitter = service.subscribe(now.getSubmissionId());
+        assertTrue(SubmissionEventsTest.sent(emitter).isEmpty());
+        release.countDown();
+
+        SubmitExerciseResponse done = awaitEvent(emitter);
+        assertEquals(SubmissionService.FEEDBACK_DONE, done.getFeedbackStatus());
+        assertEquals(Boolean.TRUE, done.getStepsFeedback().get(1).getCorrect());
+        assertEquals(Boolean.FALSE, done.getStepsFeedback().get(2).getCorrect());
+        assertEquals(List.of("x = 5"), done.getGeneratedSolutionSteps());
+        verify(mongoTemplate).updateFirst(any(Query.class), any(Update.class), eq(Submission.class));
+    }
+
+    @Test
+    void lateSubscriberReceivesTheStoredResult() throws Exception {
+        when(ai.evaluateSteps(any())).thenAnswer(inv -> aiFeedback(inv.getArgument(0)));
+
+        SubmitExerciseResponse now = service.submit("e1", stepsRequest(), true);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (SubmissionService.FEEDBACK_PENDING.equals(saved.get(now.getSubmissionId()).getFeedbackStatus())
+                && System.nanoTime() < deadline) Thread.sleep(5);
+
+        SseEmitter late = service.subscribe(now.getSubmissionId());
+        assertEquals(1, SubmissionEventsTest.sent(late).size());
+        assertEquals(SubmissionService.FEEDBACK_DONE, SubmissionEventsTest.sent(late).get(0).getFeedbackStatus());
+        assertThrows(IllegalArgumentException.class, () -> service.subscribe("unknown"));
+    }
+
+    @Test
+    void fullFeedbackQueueAnswersWithoutAi() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(ai.evaluateSteps(any())).thenAnswer(inv -> {
+            started.countDown();
+            await(release);
+            return aiFeedback(inv.getArgument(0));
+        });
+
+        // 1 worker occupé, 1 place en file, la 3e soumission est refusée par le pool
+        SubmitExerciseResponse running = service.submit("e1", stepsRequest(), true);
+        await(started);
+        SubmitExerciseResponse queued = service.submit("e1", stepsRequest(), true);
+        SubmitExerciseResponse rejected = service.submit("e1", stepsRequest(), true);
+
+        assertEquals(SubmissionService.FEEDBACK_UNAVAILABLE, rejected.getFeedbackStatus());
+        assertEquals(SubmissionService.FEEDBACK_UNAVAILABLE, saved.get(rejected.getSubmissionId()).getFeedbackStatus());
+        assertNull(saved.get(rejected.getSubmissionId()).getStepsFeedback().get(1).getCorrect());
+
+        SseEmitter forRejected = service.subscribe(rejected.getSubmissionId());
+        assertEquals(SubmissionService.FEEDBACK_UNAVAILABLE, SubmissionEventsTest.sent(forRejected).get(0).getFeedbackStatus());
+
+        SseEmitter forQueued = service.subscribe(queued.getSubmissionId());
+        release.countDown();
+        assertEquals(SubmissionService.FEEDBACK_DONE, awaitEvent(forQueued).getFeedbackStatus());
+        assertEquals(SubmissionService.FEEDBACK_PENDING, running.getFeedbackStatus());
+        verify(ai, times(2)).evaluateSteps(any());
+    }
+}